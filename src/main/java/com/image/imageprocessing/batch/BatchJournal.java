@@ -0,0 +1,321 @@
+package com.image.imageprocessing.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only record of finished batch items, so an interrupted batch can resume
+ * where it stopped.
+ *
+ * Each item gets one tab-separated {@code DONE} line, appended after its output has
+ * been renamed into place. Appends are buffered and forced to disk in groups, every
+ * {@code syncEvery} records or {@code syncInterval}, whichever comes first, so one
+ * fsync covers many images. A crash loses at most the last unsynced group, and those
+ * items are simply redone.
+ *
+ * Every session starts with an {@code OPEN} line and a clean close appends a
+ * {@code CLOSE} line. Entries of a session that reached neither its {@code CLOSE} nor
+ * the end of the file without one come from a session that died, and their outputs
+ * should be checked before being trusted, since the OS may not have flushed them
+ * either. They stay unverified across later sessions, however those end, until one
+ * checks them and records a {@code VERIFIED} line; a later session that only handles
+ * other inputs or filters leaves them for the next.
+ */
+public class BatchJournal implements AutoCloseable {
+
+    private static final String HEADER = "# batch-journal v1";
+    private static final String DONE = "DONE";
+    private static final String OPEN = "OPEN";
+    private static final String CLOSE = "CLOSE";
+    private static final String VERIFIED = "VERIFIED";
+    private static final int RATE_WINDOW = 64;
+
+    /**
+     * One finished item.
+     *
+     * @param timestamp Completion time, epoch millis
+     * @param inputHash SHA-256 of the input file's bytes, hex
+     * @param filterSpec The filter applied, as named in {@code FilterFactory}
+     * @param outputChecksum CRC32C of the output file's bytes
+     */
+    public record Entry(long timestamp,
+                        String inputHash,
+                        String filterSpec,
+                        Path outputPath,
+                        long outputSize,
+                        long outputChecksum,
+                        Path inputPath,
+                        long inputSize,
+                        long inputModified) {
+    }
+
+    private final FileChannel channel;
+    private final List<Entry> recoveredEntries;
+    private final List<Entry> unverifiedEntries;
+    private final int syncEvery;
+    private final ScheduledExecutorService syncScheduler;
+
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingCount;
+    private long sessionCompleted;
+    private final long sessionStart = System.currentTimeMillis();
+    private final Deque<Long> recentCompletions = new ArrayDeque<>(RATE_WINDOW);
+    private boolean closed;
+
+    private BatchJournal(FileChannel channel, List<Entry> recoveredEntries, List<Entry> unverifiedEntries,
+                         int syncEvery, Duration syncInterval) {
+        this.channel = channel;
+        this.recoveredEntries = List.copyOf(recoveredEntries);
+        this.unverifiedEntries = List.copyOf(unverifiedEntries);
+        this.syncEvery = syncEvery;
+
+        this.syncScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BatchJournal-Sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1, syncInterval.toMillis());
+        syncScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (IOException e) {
+                System.err.println("Error syncing batch journal: " + e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the journal for appending, reading back whatever earlier sessions recorded.
+     * A torn last line from a crash is cut off before new records are appended.
+     */
+    public static BatchJournal open(Path path, int syncEvery, Duration syncInterval) throws IOException {
+        if (syncEvery <= 0) {
+            throw new IllegalArgumentException("Sync group size must be positive: " + syncEvery);
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        List<Entry> recovered = new ArrayList<>();
+        Set<Entry> unverified = new LinkedHashSet<>();
+        List<Entry> session = new ArrayList<>();
+        long validLength = 0;
+
+        if (Files.exists(path)) {
+            byte[] content = Files.readAllBytes(path);
+            int lineStart = 0;
+            for (int i = 0; i < content.length; i++) {
+                if (content[i] != '\n') {
+                    continue;
+                }
+                String line = new String(content, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                lineStart = i + 1;
+                validLength = lineStart;
+
+                if (line.equals(OPEN)) {
+                    // The previous session never reached its CLOSE
+                    unverified.addAll(session);
+                    session.clear();
+                } else if (line.equals(CLOSE)) {
+                    session.clear();
+                } else if (line.startsWith(DONE + "\t")) {
+                    Entry entry = parse(line);
+                    if (entry != null) {
+                        recovered.add(entry);
+                        session.add(entry);
+                    }
+                } else if (line.startsWith(VERIFIED + "\t")) {
+                    Entry entry = parse(line);
+                    if (entry != null) {
+                        unverified.remove(entry);
+                    }
+                }
+            }
+            unverified.addAll(session);
+        }
+
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        try {
+            channel.truncate(validLength);
+            channel.position(validLength);
+            String start = (validLength == 0 ? HEADER + "\n" : "") + OPEN + "\n";
+            channel.write(ByteBuffer.wrap(start.getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new BatchJournal(channel, recovered, new ArrayList<>(unverified), syncEvery, syncInterval);
+    }
+
+    private static Entry parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 10) {
+            return null;
+        }
+        try {
+            return new Entry(
+                    Long.parseLong(fields[1]),
+                    fields[2],
+                    unescape(fields[3]),
+                    Paths.get(unescape(fields[4])),
+                    Long.parseLong(fields[5]),
+                    Long.parseLong(fields[6]),
+                    Paths.get(unescape(fields[7])),
+                    Long.parseLong(fields[8]),
+                    Long.parseLong(fields[9]));
+        } catch (RuntimeException e) {
+            System.err.println("Ignoring malformed journal line: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Queues a record; it reaches the disk with the next group sync.
+     */
+    public synchronized void append(Entry entry) throws IOException {
+        queue(DONE, entry);
+
+        sessionCompleted++;
+        if (recentCompletions.size() == RATE_WINDOW) {
+            recentCompletions.removeFirst();
+        }
+        recentCompletions.addLast(entry.timestamp());
+
+        if (pendingCount >= syncEvery) {
+            sync();
+        }
+    }
+
+    /**
+     * Records that an entry from {@link #getUnverifiedEntries()} was checked and its
+     * output is intact, so later sessions trust it without checking again.
+     */
+    public synchronized void markVerified(Entry entry) throws IOException {
+        queue(VERIFIED, entry);
+        if (pendingCount >= syncEvery) {
+            sync();
+        }
+    }
+
+    private void queue(String kind, Entry entry) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        pending.append(kind)
+                .append('\t').append(entry.timestamp())
+                .append('\t').append(entry.inputHash())
+                .append('\t').append(escape(entry.filterSpec()))
+                .append('\t').append(escape(entry.outputPath().toString()))
+                .append('\t').append(entry.outputSize())
+                .append('\t').append(entry.outputChecksum())
+                .append('\t').append(escape(entry.inputPath().toString()))
+                .append('\t').append(entry.inputSize())
+                .append('\t').append(entry.inputModified())
+                .append('\n');
+        pendingCount++;
+    }
+
+    /**
+     * Writes queued records and forces them to disk.
+     */
+    public synchronized void sync() throws IOException {
+        if (pendingCount == 0 || closed) {
+            return;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+        pending.setLength(0);
+        pendingCount = 0;
+    }
+
+    /**
+     * Every entry recorded by earlier sessions, oldest first.
+     */
+    public List<Entry> getRecoveredEntries() {
+        return recoveredEntries;
+    }
+
+    /**
+     * Entries recorded by a session that did not close cleanly and not verified since.
+     */
+    public List<Entry> getUnverifiedEntries() {
+        return unverifiedEntries;
+    }
+
+    public synchronized long getSessionCompleted() {
+        return sessionCompleted;
+    }
+
+    /**
+     * Items per second over the most recent completions of this session.
+     */
+    public synchronized double getRecentRate() {
+        if (recentCompletions.isEmpty()) {
+            return 0;
+        }
+        long first = recentCompletions.size() == RATE_WINDOW ? recentCompletions.getFirst() : sessionStart;
+        long span = recentCompletions.getLast() - first;
+        int count = recentCompletions.size() == RATE_WINDOW ? RATE_WINDOW - 1 : recentCompletions.size();
+        return span <= 0 ? 0 : count * 1000.0 / span;
+    }
+
+    public long getSessionStart() {
+        return sessionStart;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        syncScheduler.shutdownNow();
+        try {
+            sync();
+            channel.write(ByteBuffer.wrap((CLOSE + "\n").getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
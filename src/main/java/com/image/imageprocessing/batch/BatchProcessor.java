@@ -0,0 +1,379 @@
+package com.image.imageprocessing.batch;
+
+import com.image.imageprocessing.concurrency.AsyncImageProcessor;
+import com.image.imageprocessing.concurrency.TuningProfile;
+import com.image.imageprocessing.dedup.HashIndex;
+import com.image.imageprocessing.dedup.PerceptualHash;
+import com.image.imageprocessing.filter.FilterFactory;
+import com.image.imageprocessing.filter.ImageFilter;
+import com.image.imageprocessing.utils.ImageIOUtil;
+import com.image.imageprocessing.utils.PerformanceMetrics;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs one filter over a large set of images and can be killed and restarted at any
+ * point without redoing finished work.
+ *
+ * Every finished image is recorded in a {@link BatchJournal} with its input hash, the
+ * filter and the output's size and checksum. On restart an input is skipped when the
+ * journal has it for this filter and its output is intact. The input is considered
+ * unchanged if its size and modification time match; otherwise its content hash
+ * must match. Outputs from a session that crashed are re-checksummed, and anything
+ * that does not match is processed again. Outputs are written atomically, so a crash
+ * mid-write leaves only a hidden temp file, which is removed on start-up.
+ *
+ * With a {@link HashIndex}, an input that is a near-duplicate of an image already
+ * processed with the same filter gets a copy of that earlier output instead of
+ * going through the filter again.
+ */
+public class BatchProcessor {
+
+    private static final int SYNC_EVERY = 64;
+    private static final Duration SYNC_INTERVAL = Duration.ofSeconds(1);
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(5);
+
+    private final Path outputDirectory;
+    private final Path journalPath;
+    private final String filterName;
+    private final ImageFilter filter;
+    private final int maxInFlight;
+    private final AsyncImageProcessor processor;
+    private final HashIndex duplicateIndex;
+    private final int maxDuplicateDistance;
+    private final AtomicLong reused = new AtomicLong();
+
+    /**
+     * Outcome of a run.
+     *
+     * @param skipped Inputs already completed by an earlier session
+     * @param reused Processed inputs whose output was copied from a near-duplicate
+     */
+    public record BatchResult(int total, long processed, long skipped, long failed, long reused) {
+    }
+
+    public BatchProcessor(Path outputDirectory, Path journalPath, String filterName, int maxInFlight, int tileSize) {
+        this(outputDirectory, journalPath, filterName, maxInFlight, tileSize, null, 0);
+    }
+
+    /**
+     * @param duplicateIndex Index of earlier results, or null to process every input
+     * @param maxDuplicateDistance Largest hash distance, in bits, still treated as a duplicate
+     */
+    public BatchProcessor(Path outputDirectory, Path journalPath, String filterName, int maxInFlight, int tileSize,
+                          HashIndex duplicateIndex, int maxDuplicateDistance) {
+        this(outputDirectory, journalPath, filterName, maxInFlight, tileSize, null, duplicateIndex, maxDuplicateDistance);
+    }
+
+    /**
+     * @param tuningProfile Tuned tile sizes and worker counts, or null to always use {@code tileSize}
+     * @param duplicateIndex Index of earlier results, or null to process every input
+     * @param maxDuplicateDistance Largest hash distance, in bits, still treated as a duplicate
+     */
+    public BatchProcessor(Path outputDirectory, Path journalPath, String filterName, int maxInFlight, int tileSize,
+                          TuningProfile tuningProfile, HashIndex duplicateIndex, int maxDuplicateDistance) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in-flight images must be positive: " + maxInFlight);
+        }
+        this.outputDirectory = outputDirectory;
+        this.journalPath = journalPath;
+        this.filterName = filterName;
+        this.filter = FilterFactory.createStrict(filterName);
+        this.maxInFlight = maxInFlight;
+        this.processor = new AsyncImageProcessor(tileSize, tuningProfile);
+        this.duplicateIndex = duplicateIndex;
+        this.maxDuplicateDistance = maxDuplicateDistance;
+    }
+
+    /**
+     * Processes every input not already completed.
+     *
+     * @param inputs Image files and directories of images
+     * @throws IllegalArgumentException If two inputs would write the same output; nothing is processed then
+     */
+    public BatchResult run(List<Path> inputs) throws IOException, InterruptedException {
+        List<Path> files = expand(inputs);
+        Files.createDirectories(outputDirectory);
+        removeStaleTempFiles();
+
+        AtomicLong processed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+
+        try (BatchJournal journal = BatchJournal.open(journalPath, SYNC_EVERY, SYNC_INTERVAL)) {
+            List<Path> todo = pendingInputs(files, journal);
+            long skipped = files.size() - todo.size();
+            System.out.println("Batch: " + files.size() + " inputs, " + skipped + " already done, "
+                    + todo.size() + " to process");
+
+            ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "Batch-Progress");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleAtFixedRate(
+                    () -> System.out.println(BatchProgress.of(journal, files.size(), skipped, failed.get())),
+                    PROGRESS_INTERVAL.toMillis(), PROGRESS_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+
+            Semaphore inFlight = new Semaphore(maxInFlight);
+            try {
+                for (Path file : todo) {
+                    inFlight.acquire();
+                    Thread.ofVirtual().name("Batch-" + file.getFileName()).start(() -> {
+                        try {
+                            journal.append(processFile(file));
+                            processed.incrementAndGet();
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                            System.err.println("Error processing " + file + ": " + e.getMessage());
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+                // Holding every permit means no image is still in flight
+                inFlight.acquire(maxInFlight);
+            } finally {
+                reporter.shutdownNow();
+            }
+
+            System.out.println(BatchProgress.of(journal, files.size(), skipped, failed.get()));
+            return new BatchResult(files.size(), processed.get(), skipped, failed.get(), reused.get());
+        }
+    }
+
+    /**
+     * Lists the image files to process, each once, and checks before any work starts that
+     * no two of them would write the same output. Two inputs sharing an output would
+     * overwrite each other and both be journaled, so a rerun could never settle.
+     *
+     * @throws IllegalArgumentException If two inputs map to the same output file
+     */
+    private List<Path> expand(List<Path> inputs) throws IOException {
+        List<Path> candidates = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                List<Path> children = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(input)) {
+                    for (Path child : stream) {
+                        if (Files.isRegularFile(child) && ImageIOUtil.isSupportedImageFormat(child.toFile())) {
+                            children.add(child);
+                        }
+                    }
+                }
+                children.sort(null);
+                candidates.addAll(children);
+            } else {
+                candidates.add(input);
+            }
+        }
+
+        List<Path> files = new ArrayList<>();
+        Set<Path> seen = new HashSet<>();
+        Map<Path, Path> inputsByOutput = new HashMap<>();
+        for (Path file : candidates) {
+            if (!seen.add(file.toAbsolutePath().normalize())) {
+                // Listed both on its own and through its directory
+                continue;
+            }
+            Path output = outputPathFor(file).toAbsolutePath().normalize();
+            Path other = inputsByOutput.putIfAbsent(output, file);
+            if (other != null) {
+                throw new IllegalArgumentException("Inputs " + other + " and " + file
+                        + " would both be written to " + output + "; process them in separate runs or rename one");
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    private Path outputPathFor(Path file) {
+        return outputDirectory.resolve(ImageIOUtil.filterOutputFileName(file.getFileName().toString(), filterName));
+    }
+
+    /**
+     * Deletes temp files left by {@link ImageIOUtil#saveImageAtomically} when a previous run died mid-write.
+     */
+    private void removeStaleTempFiles() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(outputDirectory, ".*.tmp")) {
+            for (Path temp : stream) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Inputs without a trusted result for this filter. Unverified entries that pass their
+     * check are marked verified in the journal; any this run does not look at stay
+     * unverified for a later one.
+     */
+    private List<Path> pendingInputs(List<Path> files, BatchJournal journal) throws IOException {
+        Map<Path, BatchJournal.Entry> done = new HashMap<>();
+        for (BatchJournal.Entry entry : journal.getRecoveredEntries()) {
+            if (entry.filterSpec().equals(filterName)) {
+                // Later entries win if an input was processed more than once
+                done.put(entry.inputPath().toAbsolutePath().normalize(), entry);
+            }
+        }
+        Set<BatchJournal.Entry> unverified = new HashSet<>(journal.getUnverifiedEntries());
+
+        List<Path> todo = new ArrayList<>();
+        for (Path file : files) {
+            BatchJournal.Entry entry = done.get(file.toAbsolutePath().normalize());
+            boolean verifyOutput = entry != null && unverified.contains(entry);
+            if (entry == null || !isStillValid(file, entry, verifyOutput)) {
+                todo.add(file);
+            } else if (verifyOutput) {
+                journal.markVerified(entry);
+            }
+        }
+        return todo;
+    }
+
+    private boolean isStillValid(Path file, BatchJournal.Entry entry, boolean verifyOutput) {
+        try {
+            BasicFileAttributes input = Files.readAttributes(file, BasicFileAttributes.class);
+            boolean inputUnchanged = input.size() == entry.inputSize()
+                    && input.lastModifiedTime().toMillis() == entry.inputModified();
+            if (!inputUnchanged && !sha256(Files.readAllBytes(file)).equals(entry.inputHash())) {
+                return false;
+            }
+
+            Path output = entry.outputPath();
+            if (!Files.isRegularFile(output) || Files.size(output) != entry.outputSize()) {
+                return false;
+            }
+            return !verifyOutput || ImageIOUtil.checksum(output) == entry.outputChecksum();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private BatchJournal.Entry processFile(Path file) throws Exception {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        // Read once: the same bytes are hashed and decoded
+        byte[] bytes = Files.readAllBytes(file);
+        Path output = outputPathFor(file);
+
+        PerceptualHash.Fingerprint fingerprint = null;
+        Optional<HashIndex.Entry> duplicate = Optional.empty();
+        if (duplicateIndex != null) {
+            // Hashed from a subsampled proxy: a duplicate is never decoded at full resolution
+            try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+                fingerprint = duplicateIndex.getAlgorithm().fingerprint(in);
+            }
+            duplicate = duplicateIndex.findReusableResult(fingerprint.hash(), filterName, maxDuplicateDistance,
+                    fingerprint.width(), fingerprint.height());
+        }
+
+        if (duplicate.isPresent()) {
+            ImageIOUtil.copyAtomically(duplicate.get().outputPath(), output);
+            reused.incrementAndGet();
+        } else {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+            if (image == null) {
+                throw new IOException("Unreadable image");
+            }
+            PerformanceMetrics metrics = new PerformanceMetrics();
+            metrics.setFilterName(filterName);
+            BufferedImage result = processor.processWithStructuredConcurrency(image, filter, metrics, null);
+            ImageIOUtil.saveImageAtomically(result, output);
+            if (fingerprint != null) {
+                duplicateIndex.add(fingerprint.hash(), filterName, output.toAbsolutePath(),
+                        fingerprint.width(), fingerprint.height());
+            }
+        }
+
+        return new BatchJournal.Entry(
+                System.currentTimeMillis(),
+                sha256(bytes),
+                filterName,
+                output.toAbsolutePath(),
+                Files.size(output),
+                ImageIOUtil.checksum(output),
+                file.toAbsolutePath(),
+                attributes.size(),
+                attributes.lastModifiedTime().toMillis());
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Batch entry point.
+     * Usage: {@code BatchProcessor [--filter NAME] [--output DIR] [--journal FILE] [--max-in-flight N]
+     * [--dedup-index FILE] [--dedup-distance BITS] INPUT...}
+     */
+    public static void main(String[] args) throws Exception {
+        String filterName = "Grayscale";
+        Path output = Paths.get("output");
+        Path journal = null;
+        Path dedupIndex = null;
+        int dedupDistance = 4;
+        int maxInFlight = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        List<Path> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter" -> filterName = args[++i];
+                case "--output" -> output = Paths.get(args[++i]);
+                case "--journal" -> journal = Paths.get(args[++i]);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[++i]);
+                case "--dedup-index" -> dedupIndex = Paths.get(args[++i]);
+                case "--dedup-distance" -> dedupDistance = Integer.parseInt(args[++i]);
+                default -> inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Usage: BatchProcessor [--filter NAME] [--output DIR] [--journal FILE] "
+                    + "[--max-in-flight N] [--dedup-index FILE] [--dedup-distance BITS] INPUT...");
+            System.exit(2);
+        }
+        if (journal == null) {
+            journal = output.resolve(".batch-journal");
+        }
+
+        BatchResult result;
+        try (HashIndex index = dedupIndex == null ? null : HashIndex.open(dedupIndex, PerceptualHash.PHASH)) {
+            result = new BatchProcessor(output, journal, filterName, maxInFlight, ImageFilter.DEFAULT_TILE_SIZE,
+                    TuningProfile.loadDefault(), index, dedupDistance).run(inputs);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.out.println("Batch finished: " + result.processed() + " processed ("
+                + result.reused() + " reused from near-duplicates), "
+                + result.skipped() + " skipped, " + result.failed() + " failed");
+        System.exit(result.failed() == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,42 @@
+package com.image.imageprocessing.batch;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of a batch run, derived from its journal.
+ *
+ * @param total Inputs in the batch
+ * @param completed Inputs already done, including those finished by earlier sessions
+ * @param failed Inputs that failed in this session
+ * @param itemsPerSecond Recent completion rate of this session
+ */
+public record BatchProgress(int total, long completed, long failed, double itemsPerSecond) {
+
+    public static BatchProgress of(BatchJournal journal, int total, long skipped, long failed) {
+        return new BatchProgress(total, skipped + journal.getSessionCompleted(), failed, journal.getRecentRate());
+    }
+
+    public long remaining() {
+        return Math.max(0, total - completed - failed);
+    }
+
+    /**
+     * Estimated time to finish at the recent rate, or null before the first completion.
+     */
+    public Duration estimatedTimeRemaining() {
+        if (itemsPerSecond <= 0) {
+            return null;
+        }
+        return Duration.ofMillis((long) (remaining() * 1000 / itemsPerSecond));
+    }
+
+    @Override
+    public String toString() {
+        double percent = total == 0 ? 100 : completed * 100.0 / total;
+        Duration eta = estimatedTimeRemaining();
+        String etaText = eta == null ? "--" : String.format("%d:%02d:%02d",
+                eta.toHours(), eta.toMinutesPart(), eta.toSecondsPart());
+        return String.format("%d/%d done (%.1f%%) | %d failed | %.1f img/s | ETA %s",
+                completed, total, percent, failed, itemsPerSecond, etaText);
+    }
+}
@@ -0,0 +1,720 @@
+package com.image.imageprocessing.cluster;
+
+import com.image.imageprocessing.filter.FilterFactory;
+import com.image.imageprocessing.filter.ImageFilter;
+import com.image.imageprocessing.filter.TwoPassFilter;
+import com.image.imageprocessing.transform.GeometricTransform;
+import com.image.imageprocessing.utils.ImageIOUtil;
+import com.image.imageprocessing.utils.PerformanceMetrics;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads filtering over {@link ClusterWorker} processes, so one batch is not limited
+ * by the heap and garbage collector of a single JVM.
+ *
+ * Each image becomes one task, except images above {@code bandPixels} pixels, which are
+ * cut into horizontal bands. A band carries the filter's halo rows so neighbourhood
+ * filters see the same pixels as in a single process. Two-pass filters and geometric
+ * transforms need the whole image and are always sent whole.
+ *
+ * Workers connect over a socket and exchange {@link ClusterProtocol} frames. Tasks are
+ * balanced with {@link WorkStealingQueues}, and each worker keeps a couple of tasks in
+ * flight so it never waits on the network. If a worker dies, its tasks go back to the
+ * queue and another worker runs them, up to {@value #MAX_ATTEMPTS} attempts per task.
+ * A worker that holds tasks but sends nothing back for the task timeout is treated
+ * as dead too, so a hung process cannot stall the batch.
+ * Workers can run anywhere that can reach the coordinator; {@link #spawnLocalWorkers}
+ * starts them on this machine.
+ */
+public class ClusterCoordinator implements AutoCloseable {
+
+    public static final int DEFAULT_BAND_PIXELS = 4_000_000;
+    public static final Duration DEFAULT_TASK_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int PREFETCH = 2;
+    private static final Duration HANDSHAKE_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration WORKER_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(2);
+
+    private final ServerSocket serverSocket;
+    private final int bandPixels;
+    private final Duration taskTimeout;
+    private final WorkStealingQueues<Task> queues = new WorkStealingQueues<>();
+    private final Set<WorkerConnection> connections = ConcurrentHashMap.newKeySet();
+    private final List<Process> spawnedWorkers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger workerIds = new AtomicInteger();
+    private final AtomicLong taskIds = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    // Per-worker usage since start-up, combined by getUsage()
+    private final Map<Integer, PerformanceMetrics> lifetimeUsage = new ConcurrentHashMap<>();
+    private final Thread acceptThread;
+    private final ScheduledExecutorService watchdog;
+
+    // Time since when no worker has been connected, or 0 while any is
+    private volatile long noWorkersSince = System.currentTimeMillis();
+    private volatile boolean closed;
+
+    /**
+     * One unit of work: rows {@code [y, y + height)} of an image, sent with halo rows around them.
+     */
+    private static final class Task {
+        final long id;
+        final Job job;
+        final int y;
+        final int height;
+        final int haloTop;
+        final int haloBottom;
+        int attempts;
+
+        Task(long id, Job job, int y, int height, int haloTop, int haloBottom) {
+            this.id = id;
+            this.job = job;
+            this.y = y;
+            this.height = height;
+            this.haloTop = haloTop;
+            this.haloBottom = haloBottom;
+        }
+
+        boolean isWholeImage() {
+            return y == 0 && height == job.source.getHeight();
+        }
+    }
+
+    /**
+     * One image being filtered; complete once every band is back.
+     */
+    private static final class Job {
+        final String filterName;
+        final BufferedImage source;
+        final Map<Integer, PerformanceMetrics> workerUsage;
+        final CompletableFuture<BufferedImage> result = new CompletableFuture<>();
+        private int remaining;
+        private BufferedImage target;
+
+        Job(String filterName, BufferedImage source, Map<Integer, PerformanceMetrics> workerUsage) {
+            this.filterName = filterName;
+            this.source = source;
+            this.workerUsage = workerUsage;
+        }
+
+        synchronized void complete(Task task, BufferedImage pixels) {
+            if (result.isDone()) {
+                return;
+            }
+            if (task.isWholeImage()) {
+                result.complete(pixels);
+                return;
+            }
+            if (target == null) {
+                target = new BufferedImage(source.getWidth(), source.getHeight(), pixels.getType());
+            }
+            if (pixels.getType() == target.getType()) {
+                target.getRaster().setDataElements(0, task.y, pixels.getRaster());
+            } else {
+                int width = pixels.getWidth();
+                int[] row = new int[width];
+                for (int r = 0; r < pixels.getHeight(); r++) {
+                    pixels.getRGB(0, r, width, 1, row, 0, width);
+                    target.setRGB(0, task.y + r, width, 1, row, 0, width);
+                }
+            }
+            if (--remaining == 0) {
+                result.complete(target);
+            }
+        }
+    }
+
+    /**
+     * Listens on an ephemeral loopback port, for workers on this machine.
+     */
+    public ClusterCoordinator() throws IOException {
+        this(InetAddress.getLoopbackAddress(), 0, DEFAULT_BAND_PIXELS);
+    }
+
+    public ClusterCoordinator(InetAddress bindAddress, int port, int bandPixels) throws IOException {
+        this(bindAddress, port, bandPixels, DEFAULT_TASK_TIMEOUT);
+    }
+
+    /**
+     * @param bindAddress Interface to listen on; a non-loopback address lets workers on other machines join
+     * @param port Port to listen on, or 0 for any free port
+     * @param bandPixels Images with more pixels than this are split into bands of about this size
+     * @param taskTimeout How long a worker with tasks in flight may go without returning a result
+     *        before it is dropped and its tasks rerun elsewhere
+     */
+    public ClusterCoordinator(InetAddress bindAddress, int port, int bandPixels, Duration taskTimeout)
+            throws IOException {
+        if (bandPixels <= 0) {
+            throw new IllegalArgumentException("Band size must be positive: " + bandPixels);
+        }
+        if (taskTimeout.isNegative() || taskTimeout.isZero()) {
+            throw new IllegalArgumentException("Task timeout must be positive: " + taskTimeout);
+        }
+        this.bandPixels = bandPixels;
+        this.taskTimeout = taskTimeout;
+        this.serverSocket = new ServerSocket(port, 50, bindAddress);
+        this.acceptThread = new Thread(this::acceptLoop, "Cluster-Accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Cluster-Watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkMillis = Math.max(100, Math.min(1000, taskTimeout.toMillis() / 4));
+        watchdog.scheduleWithFixedDelay(this::dropHungWorkers, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getWorkerCount() {
+        return connections.size();
+    }
+
+    /**
+     * Tasks taken by a worker from another worker's queue.
+     */
+    public long getSteals() {
+        return queues.getSteals();
+    }
+
+    /**
+     * Connected workers with at least one task in flight.
+     */
+    int getBusyWorkerCount() {
+        int busy = 0;
+        for (WorkerConnection connection : connections) {
+            if (!connection.inFlight.isEmpty()) {
+                busy++;
+            }
+        }
+        return busy;
+    }
+
+    /**
+     * Tasks that had to be re-run because their worker died or hung.
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Tiles, threads and heap of every worker that has taken part since start-up, combined
+     * the same way as the metrics of a single {@link #processAll} call.
+     */
+    public PerformanceMetrics getUsage() {
+        PerformanceMetrics usage = new PerformanceMetrics();
+        for (PerformanceMetrics worker : lifetimeUsage.values()) {
+            synchronized (worker) {
+                usage.merge(worker);
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Starts worker JVMs on this machine with the same class path as this one.
+     * They are stopped when the coordinator is closed.
+     *
+     * @param threadsPerWorker Tiles each worker may filter at once
+     */
+    public List<Process> spawnLocalWorkers(int count, int threadsPerWorker) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        InetAddress address = serverSocket.getInetAddress();
+        String host = address.isAnyLocalAddress() ? InetAddress.getLoopbackAddress().getHostAddress()
+                : address.getHostAddress();
+
+        List<String> command = new ArrayList<>(List.of(java, "--enable-preview"));
+        Module module = ClusterWorker.class.getModule();
+        if (module.isNamed()) {
+            command.addAll(List.of("--module-path", System.getProperty("jdk.module.path"),
+                    "-m", module.getName() + "/" + ClusterWorker.class.getName()));
+        } else {
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"), ClusterWorker.class.getName()));
+        }
+        command.addAll(List.of("--connect", host + ":" + getPort(), "--threads", String.valueOf(threadsPerWorker)));
+
+        List<Process> started = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            spawnedWorkers.add(process);
+            started.add(process);
+        }
+        return started;
+    }
+
+    public BufferedImage process(BufferedImage image, String filterName, PerformanceMetrics metrics)
+            throws InterruptedException, ExecutionException {
+        return processAll(List.of(image), filterName, metrics).get(0);
+    }
+
+    /**
+     * Filters all images across the connected workers and waits for every result.
+     * Metrics count the tiles, threads and heap of every worker that took part.
+     *
+     * @return Filtered images, in input order
+     */
+    public List<BufferedImage> processAll(List<BufferedImage> images, String filterName, PerformanceMetrics metrics)
+            throws InterruptedException, ExecutionException {
+        if (closed) {
+            throw new IllegalStateException("Coordinator is closed");
+        }
+        ImageFilter filter = FilterFactory.createStrict(filterName);
+        long startTime = System.currentTimeMillis();
+        Map<Integer, PerformanceMetrics> workerUsage = new ConcurrentHashMap<>();
+
+        List<Job> jobs = new ArrayList<>();
+        for (BufferedImage image : images) {
+            Job job = new Job(filterName, image, workerUsage);
+            List<Task> tasks = split(job, filter);
+            job.remaining = tasks.size();
+            jobs.add(job);
+            tasks.forEach(queues::submit);
+        }
+
+        List<BufferedImage> results = new ArrayList<>();
+        try {
+            for (Job job : jobs) {
+                results.add(await(job));
+            }
+        } finally {
+            // Anything still queued for a failed run is skipped by the workers
+            for (Job job : jobs) {
+                job.result.completeExceptionally(new CancellationException());
+            }
+        }
+
+        for (PerformanceMetrics usage : workerUsage.values()) {
+            synchronized (usage) {
+                metrics.merge(usage);
+            }
+        }
+        metrics.setProcessingTime(System.currentTimeMillis() - startTime);
+        return results;
+    }
+
+    private List<Task> split(Job job, ImageFilter filter) {
+        int width = job.source.getWidth();
+        int height = job.source.getHeight();
+        boolean wholeImageOnly = filter instanceof TwoPassFilter<?, ?> || filter instanceof GeometricTransform;
+        if (wholeImageOnly || (long) width * height <= bandPixels) {
+            return List.of(new Task(taskIds.incrementAndGet(), job, 0, height, 0, 0));
+        }
+
+        int halo = filter.haloRadius();
+        // Keep bands well above the halo so the overlap stays a small fraction of the work
+        int bandHeight = Math.max(Math.max(1, 4 * halo), bandPixels / width);
+        List<Task> tasks = new ArrayList<>();
+        for (int y = 0; y < height; y += bandHeight) {
+            int rows = Math.min(bandHeight, height - y);
+            tasks.add(new Task(taskIds.incrementAndGet(), job, y, rows,
+                    Math.min(halo, y), Math.min(halo, height - y - rows)));
+        }
+        return tasks;
+    }
+
+    private BufferedImage await(Job job) throws InterruptedException, ExecutionException {
+        while (true) {
+            try {
+                return job.result.get(1, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                if (closed) {
+                    throw new ExecutionException(new IOException("Coordinator closed"));
+                }
+                long since = noWorkersSince;
+                if (since != 0 && System.currentTimeMillis() - since > WORKER_TIMEOUT.toMillis()) {
+                    throw new ExecutionException(new IOException(
+                            "No worker connected for " + WORKER_TIMEOUT.toSeconds() + " s"));
+                }
+            }
+        }
+    }
+
+    private void dropHungWorkers() {
+        long now = System.nanoTime();
+        for (WorkerConnection connection : connections) {
+            if (connection.isStalled(now)) {
+                connection.fail(new IOException("no result for " + taskTimeout.toSeconds() + " s"));
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                try {
+                    socket.setTcpNoDelay(true);
+                    socket.setSoTimeout((int) HANDSHAKE_TIMEOUT.toMillis());
+                    WorkerConnection connection = new WorkerConnection(workerIds.incrementAndGet(), socket);
+                    socket.setSoTimeout(0);
+                    connection.start();
+                } catch (IOException e) {
+                    socket.close();
+                    throw e;
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Error accepting worker: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void retry(Task task) {
+        task.attempts++;
+        if (task.attempts >= MAX_ATTEMPTS) {
+            task.job.result.completeExceptionally(new IOException(
+                    "Task " + task.id + " lost with " + task.attempts + " workers"));
+        } else {
+            retries.incrementAndGet();
+            queues.requeue(task);
+        }
+    }
+
+    /**
+     * One connected worker. A sender thread keeps up to {@value #PREFETCH} tasks in
+     * flight, and a receiver thread collects results and frees the slots.
+     */
+    private final class WorkerConnection {
+        private final int id;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final int threads;
+        private final Map<Long, Task> inFlight = new ConcurrentHashMap<>();
+        private final Semaphore window = new Semaphore(PREFETCH);
+        private Thread sender;
+        private boolean dead;
+        // When the worker last had work handed to it while idle, or sent a frame back
+        private volatile long lastProgressNanos = System.nanoTime();
+
+        WorkerConnection(int id, Socket socket) throws IOException {
+            this.id = id;
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            this.threads = ClusterProtocol.readHello(in);
+        }
+
+        void start() {
+            connections.add(this);
+            noWorkersSince = 0;
+            queues.register(id);
+            sender = Thread.ofVirtual().name("Cluster-Send-" + id).start(this::sendLoop);
+            Thread.ofVirtual().name("Cluster-Receive-" + id).start(this::receiveLoop);
+        }
+
+        private void sendLoop() {
+            try {
+                while (true) {
+                    window.acquire();
+                    Task task = queues.take(id);
+                    if (task == null) {
+                        return;
+                    }
+                    if (task.job.result.isDone()) {
+                        window.release();
+                        continue;
+                    }
+                    synchronized (this) {
+                        if (dead) {
+                            queues.requeue(task);
+                            return;
+                        }
+                        if (inFlight.isEmpty()) {
+                            lastProgressNanos = System.nanoTime();
+                        }
+                        inFlight.put(task.id, task);
+                    }
+                    synchronized (out) {
+                        ClusterProtocol.writeTask(out, task.id, task.job.filterName, task.haloTop, task.haloBottom,
+                                task.job.source, task.y - task.haloTop, task.haloTop + task.height + task.haloBottom);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // The connection is closing
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private void receiveLoop() {
+            try {
+                while (true) {
+                    ClusterProtocol.Message message = ClusterProtocol.read(in);
+                    lastProgressNanos = System.nanoTime();
+                    switch (message) {
+                        case ClusterProtocol.Result result -> {
+                            Task task = inFlight.remove(result.id());
+                            window.release();
+                            if (task != null) {
+                                recordUsage(task.job, result.metrics());
+                                task.job.complete(task, result.pixels());
+                            }
+                        }
+                        case ClusterProtocol.Failure failure -> {
+                            Task task = inFlight.remove(failure.id());
+                            window.release();
+                            if (task != null) {
+                                task.job.result.completeExceptionally(new IllegalStateException(
+                                        "Worker " + id + " failed: " + failure.message()));
+                            }
+                        }
+                        default -> throw new IOException("Unexpected frame from worker " + id);
+                    }
+                }
+            } catch (EOFException e) {
+                fail(new IOException("connection closed"));
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private void recordUsage(Job job, PerformanceMetrics taskMetrics) {
+            accumulate(job.workerUsage.computeIfAbsent(id, key -> new PerformanceMetrics()), taskMetrics);
+            accumulate(lifetimeUsage.computeIfAbsent(id, key -> new PerformanceMetrics()), taskMetrics);
+        }
+
+        /**
+         * Tiles add up over the worker's tasks; threads and heap count once, at the worker's peak.
+         * Different workers are then combined with {@link PerformanceMetrics#merge}.
+         */
+        private void accumulate(PerformanceMetrics usage, PerformanceMetrics taskMetrics) {
+            synchronized (usage) {
+                usage.setTotalTiles(usage.getTotalTiles() + taskMetrics.getTotalTiles());
+                usage.addProcessedTiles(taskMetrics.getProcessedTiles());
+                usage.setThreadsUsed(threads);
+                usage.setMemoryUsed(Math.max(usage.getMemoryUsed(), taskMetrics.getMemoryUsed()));
+                usage.setOffHeapMemoryUsed(Math.max(usage.getOffHeapMemoryUsed(), taskMetrics.getOffHeapMemoryUsed()));
+            }
+        }
+
+        /**
+         * True if tasks are in flight but nothing has come back for longer than the task timeout.
+         */
+        boolean isStalled(long now) {
+            return !inFlight.isEmpty() && now - lastProgressNanos > taskTimeout.toNanos();
+        }
+
+        /**
+         * Drops the connection and hands its unfinished tasks to the other workers.
+         */
+        void fail(IOException cause) {
+            List<Task> lost;
+            synchronized (this) {
+                if (dead) {
+                    return;
+                }
+                dead = true;
+                lost = new ArrayList<>(inFlight.values());
+                inFlight.clear();
+            }
+            connections.remove(this);
+            if (connections.isEmpty()) {
+                noWorkersSince = System.currentTimeMillis();
+            }
+            closeSocket();
+            sender.interrupt();
+            queues.unregister(id);
+
+            if (!closed) {
+                System.err.println("Error: lost worker " + id + " (" + cause.getMessage() + "), "
+                        + lost.size() + " tasks requeued");
+            }
+            lost.forEach(ClusterCoordinator.this::retry);
+        }
+
+        /**
+         * Starts sending the shutdown frame. The sender may hold the stream lock while
+         * blocked writing to a worker that stopped reading, so the frame goes out from
+         * its own platform thread, which {@link #disconnect} unblocks if it never gets
+         * the lock.
+         */
+        Thread sayGoodbye() {
+            synchronized (this) {
+                dead = true;
+            }
+            return Thread.ofPlatform().daemon().name("Cluster-Goodbye-" + id).start(() -> {
+                try {
+                    synchronized (out) {
+                        ClusterProtocol.writeShutdown(out);
+                    }
+                } catch (IOException e) {
+                    // Already gone
+                }
+            });
+        }
+
+        void disconnect() {
+            closeSocket();
+            sender.interrupt();
+        }
+
+        private void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    /**
+     * Tells every worker to exit, then stops the workers this coordinator spawned.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        watchdog.shutdownNow();
+        queues.close();
+        serverSocket.close();
+        // Every worker gets the same grace period to take its shutdown frame, then all sockets close
+        List<Thread> goodbyes = new ArrayList<>();
+        for (WorkerConnection connection : connections) {
+            goodbyes.add(connection.sayGoodbye());
+        }
+        long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+        try {
+            for (Thread goodbye : goodbyes) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining > 0) {
+                    goodbye.join(remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (WorkerConnection connection : connections) {
+            connection.disconnect();
+        }
+        connections.clear();
+
+        for (Process process : spawnedWorkers) {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Cluster entry point: spawns local workers and filters the input files across them.
+     * Usage: {@code ClusterCoordinator [--filter NAME] [--output DIR] [--workers N] [--threads N] [--port P] [--bind ADDR]
+     * [--task-timeout SECONDS] INPUT...}
+     */
+    public static void main(String[] args) throws Exception {
+        String filterName = "Grayscale";
+        Path output = Paths.get("output");
+        int workers = 2;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int port = 0;
+        InetAddress bindAddress = InetAddress.getLoopbackAddress();
+        Duration taskTimeout = DEFAULT_TASK_TIMEOUT;
+        List<File> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter" -> filterName = args[++i];
+                case "--output" -> output = Paths.get(args[++i]);
+                case "--workers" -> workers = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--bind" -> bindAddress = InetAddress.getByName(args[++i]);
+                case "--task-timeout" -> taskTimeout = Duration.ofSeconds(Long.parseLong(args[++i]));
+                default -> inputs.add(new File(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Usage: ClusterCoordinator [--filter NAME] [--output DIR] [--workers N] "
+                    + "[--threads N] [--port P] [--bind ADDR] [--task-timeout SECONDS] INPUT...");
+            System.exit(2);
+        }
+        // Outputs are named after the input file only, so same-named inputs would overwrite each other
+        Map<String, File> outputNames = new HashMap<>();
+        for (File file : inputs) {
+            String name = ImageIOUtil.filterOutputFileName(file.getName(), filterName);
+            File previous = outputNames.putIfAbsent(name, file);
+            if (previous != null) {
+                System.err.println("Error: " + previous + " and " + file + " would both be written to " + name);
+                System.exit(2);
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        try (ClusterCoordinator coordinator = new ClusterCoordinator(bindAddress, port, DEFAULT_BAND_PIXELS, taskTimeout)) {
+            coordinator.spawnLocalWorkers(workers, threads);
+
+            // Load a few images per worker at a time so the coordinator's heap stays bounded
+            int groupSize = workers * PREFETCH;
+            for (int start = 0; start < inputs.size(); start += groupSize) {
+                List<File> group = inputs.subList(start, Math.min(inputs.size(), start + groupSize));
+                List<BufferedImage> images = new ArrayList<>();
+                for (File file : group) {
+                    BufferedImage image = ImageIO.read(file);
+                    if (image == null) {
+                        throw new IOException("Unreadable image: " + file);
+                    }
+                    images.add(image);
+                }
+
+                List<BufferedImage> results = coordinator.processAll(images, filterName, new PerformanceMetrics());
+                for (int i = 0; i < group.size(); i++) {
+                    Path target = output.resolve(ImageIOUtil.filterOutputFileName(group.get(i).getName(), filterName));
+                    ImageIOUtil.saveImageAtomically(results.get(i), target);
+                }
+            }
+
+            // Every group ran on the same workers, so usage is combined per worker, not per group
+            PerformanceMetrics total = coordinator.getUsage();
+            total.setFilterName(filterName);
+            total.setProcessingTime(System.currentTimeMillis() - startTime);
+            System.out.println(total);
+            System.out.println("  Workers: " + coordinator.getWorkerCount()
+                    + " | Steals: " + coordinator.getSteals() + " | Retries: " + coordinator.getRetries());
+        }
+    }
+}
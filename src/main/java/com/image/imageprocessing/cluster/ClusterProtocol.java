@@ -0,0 +1,214 @@
+package com.image.imageprocessing.cluster;
+
+import com.image.imageprocessing.utils.PerformanceMetrics;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Binary frames exchanged between a {@link ClusterCoordinator} and its {@link ClusterWorker}s.
+ *
+ * A worker opens the connection with a hello (magic, version, thread count). After
+ * that each frame is a type byte followed by its fields, written with
+ * {@link DataOutputStream} (big-endian). Pixels travel raw, as 3 bytes per pixel
+ * (RGB) or 4 (ARGB) depending on whether the image has alpha, row by row; over a
+ * local socket this is far cheaper than encoding PNGs.
+ *
+ * <pre>
+ * TASK     id:long filter:UTF haloTop:int haloBottom:int pixels
+ * RESULT   id:long time:long tiles:int threads:int heapMB:long offHeapMB:long pixels
+ * FAILURE  id:long message:UTF
+ * SHUTDOWN
+ * pixels   width:int height:int channels:byte data:byte[width * height * channels]
+ * </pre>
+ */
+public final class ClusterProtocol {
+
+    private static final int MAGIC = 0x494D4750; // "IMGP"
+    private static final int VERSION = 1;
+
+    private static final byte TASK = 1;
+    private static final byte RESULT = 2;
+    private static final byte FAILURE = 3;
+    private static final byte SHUTDOWN = 4;
+
+    /**
+     * A frame read from the other side.
+     */
+    public sealed interface Message permits Task, Result, Failure, Shutdown {
+    }
+
+    /**
+     * A band of an image to filter. The worker drops {@code haloTop} and
+     * {@code haloBottom} rows from the filtered band; they only give neighbourhood
+     * filters real pixels to read at the band edges.
+     */
+    public record Task(long id, String filterName, int haloTop, int haloBottom, BufferedImage pixels)
+            implements Message {
+    }
+
+    /**
+     * A filtered band together with what it cost the worker.
+     */
+    public record Result(long id, PerformanceMetrics metrics, BufferedImage pixels) implements Message {
+    }
+
+    /**
+     * The filter threw; retrying on another worker would fail the same way.
+     */
+    public record Failure(long id, String message) implements Message {
+    }
+
+    public record Shutdown() implements Message {
+    }
+
+    private ClusterProtocol() {
+    }
+
+    public static void writeHello(DataOutputStream out, int threads) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(threads);
+        out.flush();
+    }
+
+    /**
+     * Reads a worker's hello.
+     *
+     * @return The worker's thread count
+     */
+    public static int readHello(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        int version = in.readInt();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("Not a compatible worker (magic " + Integer.toHexString(magic)
+                    + ", version " + version + ")");
+        }
+        return in.readInt();
+    }
+
+    /**
+     * Sends rows {@code [y, y + rows)} of the image as a task, without copying them first.
+     */
+    public static void writeTask(DataOutputStream out, long id, String filterName, int haloTop, int haloBottom,
+                                 BufferedImage image, int y, int rows) throws IOException {
+        out.writeByte(TASK);
+        out.writeLong(id);
+        out.writeUTF(filterName);
+        out.writeInt(haloTop);
+        out.writeInt(haloBottom);
+        writePixels(out, image, y, rows);
+        out.flush();
+    }
+
+    public static void writeResult(DataOutputStream out, long id, PerformanceMetrics metrics, BufferedImage image)
+            throws IOException {
+        out.writeByte(RESULT);
+        out.writeLong(id);
+        out.writeLong(metrics.getProcessingTime());
+        out.writeInt(metrics.getProcessedTiles());
+        out.writeInt(metrics.getThreadsUsed());
+        out.writeLong(metrics.getMemoryUsed());
+        out.writeLong(metrics.getOffHeapMemoryUsed());
+        writePixels(out, image, 0, image.getHeight());
+        out.flush();
+    }
+
+    public static void writeFailure(DataOutputStream out, long id, String message) throws IOException {
+        out.writeByte(FAILURE);
+        out.writeLong(id);
+        out.writeUTF(message);
+        out.flush();
+    }
+
+    public static void writeShutdown(DataOutputStream out) throws IOException {
+        out.writeByte(SHUTDOWN);
+        out.flush();
+    }
+
+    public static Message read(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case TASK -> new Task(in.readLong(), in.readUTF(), in.readInt(), in.readInt(), readPixels(in));
+            case RESULT -> {
+                long id = in.readLong();
+                PerformanceMetrics metrics = new PerformanceMetrics();
+                metrics.setProcessingTime(in.readLong());
+                int tiles = in.readInt();
+                metrics.setTotalTiles(tiles);
+                metrics.addProcessedTiles(tiles);
+                metrics.setThreadsUsed(in.readInt());
+                metrics.setMemoryUsed(in.readLong());
+                metrics.setOffHeapMemoryUsed(in.readLong());
+                yield new Result(id, metrics, readPixels(in));
+            }
+            case FAILURE -> new Failure(in.readLong(), in.readUTF());
+            case SHUTDOWN -> new Shutdown();
+            default -> throw new IOException("Unknown frame type: " + type);
+        };
+    }
+
+    private static void writePixels(DataOutputStream out, BufferedImage image, int y, int rows) throws IOException {
+        int width = image.getWidth();
+        int channels = image.getColorModel().hasAlpha() ? 4 : 3;
+        // Packed int images hand over their pixels directly; anything else goes through getRGB
+        boolean packed = image.getType() == BufferedImage.TYPE_INT_RGB
+                || image.getType() == BufferedImage.TYPE_INT_ARGB;
+
+        out.writeInt(width);
+        out.writeInt(rows);
+        out.writeByte(channels);
+
+        int[] argb = new int[width];
+        byte[] bytes = new byte[width * channels];
+        for (int row = y; row < y + rows; row++) {
+            if (packed) {
+                image.getRaster().getDataElements(0, row, width, 1, argb);
+            } else {
+                image.getRGB(0, row, width, 1, argb, 0, width);
+            }
+            int b = 0;
+            for (int x = 0; x < width; x++) {
+                int pixel = argb[x];
+                if (channels == 4) {
+                    bytes[b++] = (byte) (pixel >>> 24);
+                }
+                bytes[b++] = (byte) (pixel >> 16);
+                bytes[b++] = (byte) (pixel >> 8);
+                bytes[b++] = (byte) pixel;
+            }
+            out.write(bytes);
+        }
+    }
+
+    private static BufferedImage readPixels(DataInputStream in) throws IOException {
+        int width = in.readInt();
+        int height = in.readInt();
+        int channels = in.readByte();
+        if (width <= 0 || height <= 0 || (channels != 3 && channels != 4)) {
+            throw new IOException("Bad pixel frame: " + width + "x" + height + "x" + channels);
+        }
+
+        BufferedImage image = new BufferedImage(width, height,
+                channels == 4 ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        byte[] bytes = new byte[width * channels];
+        for (int row = 0; row < height; row++) {
+            in.readFully(bytes);
+            int b = 0;
+            int offset = row * width;
+            for (int x = 0; x < width; x++) {
+                int alpha = channels == 4 ? bytes[b++] & 0xFF : 0xFF;
+                pixels[offset + x] = alpha << 24
+                        | (bytes[b] & 0xFF) << 16
+                        | (bytes[b + 1] & 0xFF) << 8
+                        | (bytes[b + 2] & 0xFF);
+                b += 3;
+            }
+        }
+        return image;
+    }
+}
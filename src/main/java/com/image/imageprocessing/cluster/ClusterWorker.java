@@ -0,0 +1,162 @@
+package com.image.imageprocessing.cluster;
+
+import com.image.imageprocessing.concurrency.AsyncImageProcessor;
+import com.image.imageprocessing.concurrency.TuningProfile;
+import com.image.imageprocessing.filter.FilterFactory;
+import com.image.imageprocessing.filter.ImageFilter;
+import com.image.imageprocessing.utils.PerformanceMetrics;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A worker process for a {@link ClusterCoordinator}. It connects to the coordinator,
+ * filters each task it receives with the usual tile-parallel processor, and sends the
+ * band back. It exits when the coordinator says so or the connection goes away.
+ */
+public class ClusterWorker {
+
+    private static final int CONNECT_ATTEMPTS = 50;
+    private static final long CONNECT_RETRY_MILLIS = 100;
+
+    private final String host;
+    private final int port;
+    private final int threads;
+    private final AsyncImageProcessor processor;
+    private final Map<String, ImageFilter> filters = new HashMap<>();
+
+    /**
+     * @param threads Tiles filtered at once; reported to the coordinator for its metrics
+     */
+    public ClusterWorker(String host, int port, int threads, int tileSize) {
+        this(host, port, threads, tileSize, null);
+    }
+
+    /**
+     * @param threads Tiles filtered at once; reported to the coordinator for its metrics
+     * @param tuningProfile Tuned tile sizes, or null to always use {@code tileSize}
+     */
+    public ClusterWorker(String host, int port, int threads, int tileSize, TuningProfile tuningProfile) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.host = host;
+        this.port = port;
+        this.threads = threads;
+        this.processor = new AsyncImageProcessor(tileSize, new Semaphore(threads), tuningProfile);
+    }
+
+    /**
+     * Serves tasks until the coordinator shuts the worker down or disconnects.
+     */
+    public void run() throws IOException, InterruptedException {
+        try (Socket socket = connect()) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            ClusterProtocol.writeHello(out, threads);
+
+            while (true) {
+                ClusterProtocol.Message message;
+                try {
+                    message = ClusterProtocol.read(in);
+                } catch (EOFException e) {
+                    return;
+                }
+                switch (message) {
+                    case ClusterProtocol.Task task -> handle(task, out);
+                    case ClusterProtocol.Shutdown shutdown -> {
+                        return;
+                    }
+                    default -> throw new IOException("Unexpected frame from coordinator");
+                }
+            }
+        }
+    }
+
+    /**
+     * The coordinator may still be starting, so refused connections are retried for a few seconds.
+     */
+    private Socket connect() throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return new Socket(host, port);
+            } catch (ConnectException e) {
+                if (attempt == CONNECT_ATTEMPTS) {
+                    throw e;
+                }
+                Thread.sleep(CONNECT_RETRY_MILLIS);
+            }
+        }
+    }
+
+    private void handle(ClusterProtocol.Task task, DataOutputStream out) throws IOException, InterruptedException {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        BufferedImage result;
+        try {
+            ImageFilter filter = filters.computeIfAbsent(task.filterName(), FilterFactory::createStrict);
+            metrics.setFilterName(task.filterName());
+            result = processor.processWithStructuredConcurrency(task.pixels(), filter, metrics, null);
+        } catch (ExecutionException e) {
+            ClusterProtocol.writeFailure(out, task.id(), String.valueOf(e.getCause().getMessage()));
+            return;
+        } catch (RuntimeException e) {
+            ClusterProtocol.writeFailure(out, task.id(), String.valueOf(e.getMessage()));
+            return;
+        }
+
+        if (task.haloTop() > 0 || task.haloBottom() > 0) {
+            result = result.getSubimage(0, task.haloTop(), result.getWidth(),
+                    result.getHeight() - task.haloTop() - task.haloBottom());
+        }
+        metrics.setThreadsUsed(threads);
+        metrics.captureMemoryUsage();
+        ClusterProtocol.writeResult(out, task.id(), metrics, result);
+    }
+
+    /**
+     * Worker entry point.
+     * Usage: {@code ClusterWorker --connect HOST:PORT [--threads N] [--tile-size N]}
+     */
+    public static void main(String[] args) throws Exception {
+        String address = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int tileSize = ImageFilter.DEFAULT_TILE_SIZE;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--connect" -> address = args[++i];
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--tile-size" -> tileSize = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        int colon = address == null ? -1 : address.lastIndexOf(':');
+        if (colon <= 0) {
+            System.err.println("Usage: ClusterWorker --connect HOST:PORT [--threads N] [--tile-size N]");
+            System.exit(2);
+        }
+
+        try {
+            new ClusterWorker(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)),
+                    threads, tileSize, TuningProfile.loadDefault()).run();
+        } catch (IOException e) {
+            System.err.println("Error in cluster worker: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
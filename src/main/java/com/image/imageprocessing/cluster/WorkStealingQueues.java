@@ -0,0 +1,141 @@
+package com.image.imageprocessing.cluster;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-worker task deques with stealing. New tasks go to the shortest deque; a worker
+ * takes from the head of its own deque, then from the shared deque, and when both
+ * are empty steals from the tail of the longest other deque. The shared deque holds
+ * tasks submitted before any worker connected and tasks returned by workers that died.
+ *
+ * Tasks are whole images or bands of thousands of rows, so one lock around all deques
+ * is never contended enough to matter.
+ */
+final class WorkStealingQueues<T> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<Integer, Deque<T>> local = new LinkedHashMap<>();
+    private final Deque<T> shared = new ArrayDeque<>();
+    private long steals;
+    private boolean closed;
+
+    void register(int worker) {
+        lock.lock();
+        try {
+            local.put(worker, new ArrayDeque<>());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a worker and moves its queued tasks to the shared deque.
+     */
+    void unregister(int worker) {
+        lock.lock();
+        try {
+            Deque<T> orphaned = local.remove(worker);
+            if (orphaned != null) {
+                shared.addAll(orphaned);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void submit(T task) {
+        lock.lock();
+        try {
+            Deque<T> target = shared;
+            for (Deque<T> queue : local.values()) {
+                if (target == shared || queue.size() < target.size()) {
+                    target = queue;
+                }
+            }
+            target.addLast(task);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts a task back at the front of the shared deque, ahead of everything not yet started.
+     */
+    void requeue(T task) {
+        lock.lock();
+        try {
+            shared.addFirst(task);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until there is a task for the worker.
+     *
+     * @return The next task, or null once the worker is unregistered or the queues are closed
+     */
+    T take(int worker) throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Deque<T> own = local.get(worker);
+                if (own == null || closed) {
+                    return null;
+                }
+                T task = own.pollFirst();
+                if (task == null) {
+                    task = shared.pollFirst();
+                }
+                if (task == null) {
+                    Deque<T> victim = null;
+                    for (Map.Entry<Integer, Deque<T>> entry : local.entrySet()) {
+                        Deque<T> queue = entry.getValue();
+                        if (entry.getKey() != worker && (victim == null || queue.size() > victim.size())) {
+                            victim = queue;
+                        }
+                    }
+                    if (victim != null && !victim.isEmpty()) {
+                        task = victim.pollLast();
+                        steals++;
+                    }
+                }
+                if (task != null) {
+                    return task;
+                }
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getSteals() {
+        lock.lock();
+        try {
+            return steals;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.image.imageprocessing.color;
+
+/**
+ * HSV in integer arithmetic. Hue runs over [0, {@value #HUE_RANGE}), 256 steps per
+ * 60° sector, and saturation and value over [0, 255]. Colours are packed with
+ * hue in bits 16-26, saturation in 8-15 and value in 0-7.
+ *
+ * The divisions by the chroma and by the maximum are replaced by reciprocal tables,
+ * so a conversion is a few multiplies and shifts.
+ */
+public final class Hsv {
+
+    public static final int HUE_RANGE = 6 * 256;
+
+    private static final int SHIFT = 16;
+    private static final int HALF = 1 << (SHIFT - 1);
+
+    // 256 * 2^16 / n and 255 * 2^16 / n, rounded
+    private static final int[] HUE_RECIPROCAL = new int[256];
+    private static final int[] SATURATION_RECIPROCAL = new int[256];
+
+    static {
+        for (int n = 1; n < 256; n++) {
+            HUE_RECIPROCAL[n] = (int) Math.round(256.0 * (1 << SHIFT) / n);
+            SATURATION_RECIPROCAL[n] = (int) Math.round(255.0 * (1 << SHIFT) / n);
+        }
+    }
+
+    private Hsv() {
+    }
+
+    /**
+     * @param rgb Packed RGB; alpha is ignored
+     * @return Packed HSV
+     */
+    public static int fromRgb(int rgb) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        int max = Math.max(r, Math.max(g, b));
+        int min = Math.min(r, Math.min(g, b));
+        int chroma = max - min;
+        if (chroma == 0) {
+            return max;
+        }
+
+        int saturation = (chroma * SATURATION_RECIPROCAL[max] + HALF) >> SHIFT;
+        int hue;
+        if (max == r) {
+            hue = ((g - b) * HUE_RECIPROCAL[chroma] + HALF) >> SHIFT;
+            if (hue < 0) {
+                hue += HUE_RANGE;
+            }
+        } else if (max == g) {
+            hue = 512 + (((b - r) * HUE_RECIPROCAL[chroma] + HALF) >> SHIFT);
+        } else {
+            hue = 1024 + (((r - g) * HUE_RECIPROCAL[chroma] + HALF) >> SHIFT);
+        }
+        if (hue >= HUE_RANGE) {
+            hue -= HUE_RANGE;
+        }
+        return pack(hue, saturation, max);
+    }
+
+    /**
+     * @param hsv Packed HSV
+     * @return Opaque packed RGB
+     */
+    public static int toRgb(int hsv) {
+        int hue = (hsv >> 16) & 0x7FF;
+        int saturation = (hsv >> 8) & 0xFF;
+        int value = hsv & 0xFF;
+        if (saturation == 0) {
+            return 0xFF000000 | (value << 16) | (value << 8) | value;
+        }
+
+        int sector = hue >> 8;
+        int fraction = hue & 0xFF;
+        int p = div255(value * (255 - saturation));
+        int q = div255(value * (255 - ((saturation * fraction + 128) >> 8)));
+        int t = div255(value * (255 - ((saturation * (256 - fraction) + 128) >> 8)));
+
+        int r, g, b;
+        switch (sector) {
+            case 0 -> { r = value; g = t; b = p; }
+            case 1 -> { r = q; g = value; b = p; }
+            case 2 -> { r = p; g = value; b = t; }
+            case 3 -> { r = p; g = q; b = value; }
+            case 4 -> { r = t; g = p; b = value; }
+            default -> { r = value; g = p; b = q; }
+        }
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * @param hue Any integer; wrapped into [0, {@value #HUE_RANGE})
+     */
+    public static int pack(int hue, int saturation, int value) {
+        return (Math.floorMod(hue, HUE_RANGE) << 16) | (saturation << 8) | value;
+    }
+
+    /**
+     * x / 255 rounded, exact for x in [0, 65535].
+     */
+    private static int div255(int x) {
+        x += 128;
+        return (x + (x >> 8)) >> 8;
+    }
+}
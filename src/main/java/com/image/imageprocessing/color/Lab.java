@@ -0,0 +1,110 @@
+package com.image.imageprocessing.color;
+
+/**
+ * CIE L*a*b* for sRGB colours under a D65 white point. L* runs over [0, 100];
+ * a* and b* are roughly within [-128, 127] for sRGB colours.
+ *
+ * The expensive steps are table lookups. Decoding sRGB gamma is a 256-entry table,
+ * the cube root in the Lab transfer function is an interpolated table over [0, 1],
+ * and encoding back to sRGB is a 16K-entry table on linear light. The way back needs
+ * only cubes. Colours outside the sRGB gamut are clipped per channel.
+ */
+public final class Lab {
+
+    private static final float EPSILON = 216f / 24389f;
+    private static final float KAPPA = 24389f / 27f;
+    private static final float DELTA = 6f / 29f;
+
+    // D65 reference white
+    private static final float WHITE_X = 0.95047f;
+    private static final float WHITE_Z = 1.08883f;
+    private static final float INVERSE_WHITE_X = 1 / WHITE_X;
+    private static final float INVERSE_WHITE_Z = 1 / WHITE_Z;
+
+    private static final int CUBE_ROOT_STEPS = 4096;
+    private static final int ENCODE_STEPS = 1 << 14;
+
+    private static final float[] DECODE = new float[256];
+    private static final float[] CUBE_ROOT = new float[CUBE_ROOT_STEPS + 2];
+    private static final byte[] ENCODE = new byte[ENCODE_STEPS + 1];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double c = i / 255.0;
+            DECODE[i] = (float) (c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4));
+        }
+        for (int i = 0; i < CUBE_ROOT.length; i++) {
+            double t = (double) i / CUBE_ROOT_STEPS;
+            CUBE_ROOT[i] = (float) (t > EPSILON ? Math.cbrt(t) : (KAPPA * t + 16) / 116);
+        }
+        for (int i = 0; i <= ENCODE_STEPS; i++) {
+            double linear = (double) i / ENCODE_STEPS;
+            double c = linear <= 0.0031308 ? 12.92 * linear : 1.055 * Math.pow(linear, 1 / 2.4) - 0.055;
+            ENCODE[i] = (byte) Math.round(c * 255);
+        }
+    }
+
+    private Lab() {
+    }
+
+    /**
+     * Converts a packed RGB colour, ignoring alpha.
+     *
+     * @param lab Receives L*, a* and b*, in that order
+     */
+    public static void fromRgb(int rgb, float[] lab) {
+        float r = DECODE[(rgb >> 16) & 0xFF];
+        float g = DECODE[(rgb >> 8) & 0xFF];
+        float b = DECODE[rgb & 0xFF];
+
+        // sRGB to XYZ, with X and Z already divided by the white point
+        float x = (0.4124564f * r + 0.3575761f * g + 0.1804375f * b) * INVERSE_WHITE_X;
+        float y = 0.2126729f * r + 0.7151522f * g + 0.0721750f * b;
+        float z = (0.0193339f * r + 0.1191920f * g + 0.9503041f * b) * INVERSE_WHITE_Z;
+
+        float fx = transfer(x);
+        float fy = transfer(y);
+        float fz = transfer(z);
+        lab[0] = 116 * fy - 16;
+        lab[1] = 500 * (fx - fy);
+        lab[2] = 200 * (fy - fz);
+    }
+
+    /**
+     * @return The opaque packed RGB colour, clipped to the sRGB gamut
+     */
+    public static int toRgb(float l, float a, float b) {
+        float fy = (l + 16) * (1f / 116);
+        float fx = fy + a * (1f / 500);
+        float fz = fy - b * (1f / 200);
+
+        float x = inverseTransfer(fx) * WHITE_X;
+        float y = inverseTransfer(fy);
+        float z = inverseTransfer(fz) * WHITE_Z;
+
+        float red = 3.2404542f * x - 1.5371385f * y - 0.4985314f * z;
+        float green = -0.9692660f * x + 1.8760108f * y + 0.0415560f * z;
+        float blue = 0.0556434f * x - 0.2040259f * y + 1.0572252f * z;
+        return 0xFF000000 | (encode(red) << 16) | (encode(green) << 8) | encode(blue);
+    }
+
+    /**
+     * The Lab transfer function f(t), interpolated from the table. Inputs are
+     * clamped to [0, 1], which covers every sRGB colour.
+     */
+    private static float transfer(float t) {
+        float position = Math.max(0f, Math.min(1f, t)) * CUBE_ROOT_STEPS;
+        int index = (int) position;
+        float fraction = position - index;
+        return CUBE_ROOT[index] + fraction * (CUBE_ROOT[index + 1] - CUBE_ROOT[index]);
+    }
+
+    private static float inverseTransfer(float f) {
+        return f > DELTA ? f * f * f : (116 * f - 16) / KAPPA;
+    }
+
+    private static int encode(float linear) {
+        int index = (int) (Math.max(0f, Math.min(1f, linear)) * ENCODE_STEPS + 0.5f);
+        return ENCODE[index] & 0xFF;
+    }
+}
@@ -0,0 +1,71 @@
+package com.image.imageprocessing.color;
+
+/**
+ * Full-range BT.601 YCbCr, as used by JPEG, in 16.16 fixed point.
+ * Colours are packed with Y in bits 16-23, Cb in 8-15 and Cr in 0-7,
+ * with Cb and Cr centred on 128.
+ */
+public final class YCbCr {
+
+    private static final int SHIFT = 16;
+    private static final int HALF = 1 << (SHIFT - 1);
+
+    private static final int Y_R = fixed(0.299);
+    private static final int Y_G = fixed(0.587);
+    private static final int Y_B = fixed(0.114);
+    private static final int CB_R = fixed(-0.168736);
+    private static final int CB_G = fixed(-0.331264);
+    private static final int CB_B = fixed(0.5);
+    private static final int CR_R = fixed(0.5);
+    private static final int CR_G = fixed(-0.418688);
+    private static final int CR_B = fixed(-0.081312);
+
+    private static final int R_CR = fixed(1.402);
+    private static final int G_CB = fixed(-0.344136);
+    private static final int G_CR = fixed(-0.714136);
+    private static final int B_CB = fixed(1.772);
+
+    private YCbCr() {
+    }
+
+    /**
+     * @param rgb Packed RGB; alpha is ignored
+     * @return Packed YCbCr
+     */
+    public static int fromRgb(int rgb) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        int y = (Y_R * r + Y_G * g + Y_B * b + HALF) >> SHIFT;
+        int cb = ((CB_R * r + CB_G * g + CB_B * b + HALF) >> SHIFT) + 128;
+        int cr = ((CR_R * r + CR_G * g + CR_B * b + HALF) >> SHIFT) + 128;
+        return pack(clamp(y), clamp(cb), clamp(cr));
+    }
+
+    /**
+     * @param ycc Packed YCbCr
+     * @return Opaque packed RGB
+     */
+    public static int toRgb(int ycc) {
+        int y = (ycc >> 16) & 0xFF;
+        int cb = ((ycc >> 8) & 0xFF) - 128;
+        int cr = (ycc & 0xFF) - 128;
+        int base = (y << SHIFT) + HALF;
+        int r = clamp((base + R_CR * cr) >> SHIFT);
+        int g = clamp((base + G_CB * cb + G_CR * cr) >> SHIFT);
+        int b = clamp((base + B_CB * cb) >> SHIFT);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    public static int pack(int y, int cb, int cr) {
+        return (y << 16) | (cb << 8) | cr;
+    }
+
+    private static int fixed(double value) {
+        return (int) Math.round(value * (1 << SHIFT));
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -1,25 +1,69 @@
 package com.image.imageprocessing.concurrency;
 
 import com.image.imageprocessing.filter.ImageFilter;
+import com.image.imageprocessing.filter.PlanarFilter;
+import com.image.imageprocessing.filter.TwoPassFilter;
+import com.image.imageprocessing.raster.OffHeapImage;
+import com.image.imageprocessing.raster.PixelLayout;
+import com.image.imageprocessing.raster.PlanarImage;
+import com.image.imageprocessing.stats.HistogramAccumulatorPool;
+import com.image.imageprocessing.stats.ImageStatistics;
+import com.image.imageprocessing.transform.GeometricTransform;
 import com.image.imageprocessing.utils.PerformanceMetrics;
 
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.Semaphore;
 
 public class AsyncImageProcessor {
 
     private final int tileSize;
+    private final Semaphore cpuBudget;
+    private final TuningProfile tuningProfile;
 
     @FunctionalInterface
     public interface TileUpdateCallback {
         void onTileProcessed(BufferedImage tile, int x, int y);
     }
 
+    /**
+     * A filtered image together with the statistics of its pixels.
+     */
+    public record ProcessedImage(BufferedImage image, ImageStatistics statistics) {
+    }
+
     public AsyncImageProcessor(int tileSize) {
+        this(tileSize, null, null);
+    }
+
+    /**
+     * Creates a processor whose tiles compete for a shared CPU budget. Processors that
+     * share the same semaphore (e.g. one per animation frame) never run more tiles at
+     * once than it has permits, however many images are in flight.
+     */
+    public AsyncImageProcessor(int tileSize, Semaphore cpuBudget) {
+        this(tileSize, cpuBudget, null);
+    }
+
+    /**
+     * Creates a processor that takes tile size and worker count from the tuning profile
+     * whenever it has an entry for the filter and image size, and falls back to
+     * {@code tileSize} with unlimited workers otherwise.
+     */
+    public AsyncImageProcessor(int tileSize, TuningProfile tuningProfile) {
+        this(tileSize, null, tuningProfile);
+    }
+
+    /**
+     * Creates a processor with both a shared CPU budget and a tuning profile. The budget
+     * takes precedence over the profile's worker count; tuned tile sizes still apply.
+     */
+    public AsyncImageProcessor(int tileSize, Semaphore cpuBudget, TuningProfile tuningProfile) {
         this.tileSize = tileSize;
+        this.cpuBudget = cpuBudget;
+        this.tuningProfile = tuningProfile;
     }
 
     public BufferedImage processWithStructuredConcurrency(
@@ -29,72 +73,329 @@ public class AsyncImageProcessor {
             TileUpdateCallback callback)
             throws InterruptedException, ExecutionException {
 
+        return process(image, filter, null, metrics, callback, false).image();
+    }
+
+    /**
+     * Filters the image straight into {@code destination}, e.g. the buffer behind an
+     * image view, instead of allocating a result. Each tile is written there as soon as
+     * it is filtered, and the callback receives a view of the destination rather than
+     * a copy of the tile, so no full-size intermediate image is kept.
+     *
+     * @param destination Sized like the output: the source, or for geometric transforms
+     *        the size of their mapping. Transforms write its pixels directly and need
+     *        an INT_RGB, INT_ARGB or INT_ARGB_PRE image.
+     */
+    public void processInto(
+            BufferedImage image,
+            ImageFilter filter,
+            BufferedImage destination,
+            PerformanceMetrics metrics,
+            TileUpdateCallback callback)
+            throws InterruptedException, ExecutionException {
+
+        process(image, filter, destination, metrics, callback, false);
+    }
+
+    /**
+     * Same as {@link #processWithStructuredConcurrency} but also computes histograms
+     * of the filtered output. Each tile is counted right after it is filtered, while
+     * its pixels are still hot, so no second read of the image is needed.
+     */
+    public ProcessedImage processWithStatistics(
+            BufferedImage image,
+            ImageFilter filter,
+            PerformanceMetrics metrics,
+            TileUpdateCallback callback)
+            throws InterruptedException, ExecutionException {
+
+        return process(image, filter, null, metrics, callback, true);
+    }
+
+    /**
+     * Filters an off-heap image into a new off-heap image. Only one tile plus its halo
+     * is copied onto the heap per task, so heap use stays proportional to the tile size
+     * and concurrency rather than the image size. The caller owns the returned image
+     * and must close it.
+     *
+     * @throws IllegalArgumentException For two-pass filters and geometric transforms,
+     *         which need the whole image
+     */
+    public OffHeapImage processOffHeap(
+            OffHeapImage image,
+            ImageFilter filter,
+            PerformanceMetrics metrics)
+            throws InterruptedException, ExecutionException {
+
+        // A FilterPipeline cannot hold either kind: its constructor rejects them
+        if (filter instanceof TwoPassFilter<?, ?>) {
+            throw new IllegalArgumentException("Two-pass filters need the whole image and cannot run off-heap");
+        }
+        if (filter instanceof GeometricTransform) {
+            throw new IllegalArgumentException("Geometric transforms read arbitrary source regions and cannot run off-heap");
+        }
+
         long startTime = System.currentTimeMillis();
         int width = image.getWidth();
         int height = image.getHeight();
 
-        int numHorizontalTiles = (width + tileSize - 1) / tileSize;
-        int numVerticalTiles = (height + tileSize - 1) / tileSize;
-        int totalTiles = numHorizontalTiles * numVerticalTiles;
+        TileGrid grid = gridFor(filter, width, height);
+        metrics.setTotalTiles(grid.getTileCount());
+
+        OffHeapImage resultImage = OffHeapImage.allocate(width, height, image.hasAlpha());
+        int halo = filter.haloRadius();
+
+        try {
+            grid.forEachTile(tile -> {
+                int haloX = Math.max(0, tile.x() - halo);
+                int haloY = Math.max(0, tile.y() - halo);
+                int haloWidth = Math.min(width, tile.x() + tile.width() + halo) - haloX;
+                int haloHeight = Math.min(height, tile.y() + tile.height() + halo) - haloY;
 
-        metrics.setTotalTiles(totalTiles);
+                BufferedImage processedTile = filter.filter(image.readTile(haloX, haloY, haloWidth, haloHeight));
+                if (halo > 0) {
+                    processedTile = processedTile.getSubimage(
+                            tile.x() - haloX, tile.y() - haloY, tile.width(), tile.height());
+                }
+                resultImage.writeTile(processedTile, tile.x(), tile.y());
+                metrics.incrementProcessedTiles();
+            });
+        } catch (InterruptedException | ExecutionException | RuntimeException e) {
+            resultImage.close();
+            throw e;
+        }
 
-        BufferedImage resultImage = new BufferedImage(width, height, image.getType());
+        metrics.captureMemoryUsage();
+        metrics.setProcessingTime(System.currentTimeMillis() - startTime);
+        return resultImage;
+    }
 
-        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+    /**
+     * Two-pass filters are never tuned: their tile grid defines their output
+     * (e.g. CLAHE regions), not just how the work is split.
+     */
+    private TileGrid gridFor(ImageFilter filter, int width, int height) {
+        if (tuningProfile != null && !(filter instanceof TwoPassFilter<?, ?>)) {
+            var tuned = tuningProfile.lookup(filter, width, height);
+            if (tuned.isPresent()) {
+                int workers = tuned.get().workers();
+                Semaphore budget = cpuBudget != null || workers <= 0 ? cpuBudget : new Semaphore(workers);
+                return new TileGrid(width, height, tuned.get().tileSize(), budget);
+            }
+        }
+        return new TileGrid(width, height, tileSize, cpuBudget);
+    }
 
-            List<StructuredTaskScope.Subtask<TileResult>> tasks = new ArrayList<>();
+    /**
+     * @param destination Where the output goes, or null to allocate it
+     */
+    private ProcessedImage process(
+            BufferedImage image,
+            ImageFilter filter,
+            BufferedImage destination,
+            PerformanceMetrics metrics,
+            TileUpdateCallback callback,
+            boolean collectStatistics)
+            throws InterruptedException, ExecutionException {
 
-            for (int i = 0; i < numHorizontalTiles; i++) {
-                for (int j = 0; j < numVerticalTiles; j++) {
+        long startTime = System.currentTimeMillis();
+        int width = image.getWidth();
+        int height = image.getHeight();
 
-                    final int x = i * tileSize;
-                    final int y = j * tileSize;
-                    final int tileWidth = Math.min(tileSize, width - x);
-                    final int tileHeight = Math.min(tileSize, height - y);
+        if (filter instanceof GeometricTransform transform) {
+            ProcessedImage processed = processTransform(
+                    image, transform, destination, metrics, callback, collectStatistics);
+            metrics.setProcessingTime(System.currentTimeMillis() - startTime);
+            return processed;
+        }
 
-                    var task = scope.fork(() -> {
-                        BufferedImage subImage = image.getSubimage(x, y, tileWidth, tileHeight);
-                        BufferedImage processedTile = filter.filter(subImage);
-                        metrics.incrementProcessedTiles();
+        checkSize(destination, width, height);
+        TileGrid grid = gridFor(filter, width, height);
+        metrics.setTotalTiles(grid.getTileCount());
 
-                        // 🔥 Live UI tile update callback
-                        if (callback != null) {
-                            callback.onTileProcessed(processedTile, x, y);
-                        }
+        if (filter instanceof TwoPassFilter<?, ?> twoPassFilter) {
+            ProcessedImage processed = processTwoPass(
+                    image, twoPassFilter, grid, destination, metrics, callback, collectStatistics);
+            metrics.setProcessingTime(System.currentTimeMillis() - startTime);
+            return processed;
+        }
 
-                        return new TileResult(processedTile, x, y);
-                    });
+        if (filter.preferredLayout() == PixelLayout.PLANAR && filter instanceof PlanarFilter planarFilter) {
+            ProcessedImage processed = processPlanar(
+                    image, planarFilter, grid, destination, metrics, callback, collectStatistics);
+            metrics.setProcessingTime(System.currentTimeMillis() - startTime);
+            return processed;
+        }
 
-                    tasks.add(task);
-                }
-            }
+        BufferedImage resultImage = destination != null ? destination : new BufferedImage(width, height, image.getType());
+        int halo = filter.haloRadius();
 
-            scope.join();
-            scope.throwIfFailed();
+        HistogramAccumulatorPool histograms = collectStatistics ? new HistogramAccumulatorPool() : null;
+        grid.forEachTile(tile -> {
+            // Widen the tile by the filter's halo so neighbourhood reads see real pixels, then crop back
+            int haloX = Math.max(0, tile.x() - halo);
+            int haloY = Math.max(0, tile.y() - halo);
+            int haloWidth = Math.min(width, tile.x() + tile.width() + halo) - haloX;
+            int haloHeight = Math.min(height, tile.y() + tile.height() + halo) - haloY;
 
-            // Final merge (ensures final consistent output)
-            for (var task : tasks) {
-                TileResult result = task.get();
-                resultImage.getGraphics().drawImage(result.tile, result.x, result.y, null);
+            BufferedImage subImage = image.getSubimage(haloX, haloY, haloWidth, haloHeight);
+            BufferedImage processedTile = filter.filter(subImage);
+            if (halo > 0) {
+                processedTile = processedTile.getSubimage(
+                        tile.x() - haloX, tile.y() - haloY, tile.width(), tile.height());
             }
-        }
+            // Tiles are disjoint, so each one goes straight into the result; none is kept
+            BufferedImage resultTile = writeTile(resultImage, processedTile, tile);
+            metrics.incrementProcessedTiles();
+            finishTile(resultTile, tile, callback, histograms);
+        });
 
         long endTime = System.currentTimeMillis();
         metrics.setProcessingTime(endTime - startTime);
 
-        return resultImage;
+        ImageStatistics statistics = histograms != null ? histograms.toStatistics() : null;
+        return new ProcessedImage(resultImage, statistics);
     }
 
-    private static class TileResult {
-        final BufferedImage tile;
-        final int x;
-        final int y;
+    /**
+     * Copies a filtered tile into its place in the result, converting pixel formats as
+     * needed, and returns that region of the result.
+     */
+    private static BufferedImage writeTile(BufferedImage result, BufferedImage tilePixels, TileGrid.Tile tile) {
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setComposite(AlphaComposite.Src);
+            graphics.drawImage(tilePixels, tile.x(), tile.y(), null);
+        } finally {
+            graphics.dispose();
+        }
+        return result.getSubimage(tile.x(), tile.y(), tile.width(), tile.height());
+    }
 
-        TileResult(BufferedImage tile, int x, int y) {
-            this.tile = tile;
-            this.x = x;
-            this.y = y;
+    /**
+     * Counts the finished tile if statistics are wanted and reports it to the callback.
+     *
+     * @param histograms The image's accumulators, or null without statistics
+     */
+    private static void finishTile(BufferedImage resultTile, TileGrid.Tile tile,
+                                   TileUpdateCallback callback, HistogramAccumulatorPool histograms) {
+        if (histograms != null) {
+            histograms.accumulate(resultTile);
         }
+        // 🔥 Live UI tile update callback
+        if (callback != null) {
+            callback.onTileProcessed(resultTile, tile.x(), tile.y());
+        }
+    }
+
+    private static void checkSize(BufferedImage destination, int width, int height) {
+        if (destination != null && (destination.getWidth() != width || destination.getHeight() != height)) {
+            throw new IllegalArgumentException("Destination is " + destination.getWidth() + "x"
+                    + destination.getHeight() + " but the output is " + width + "x" + height);
+        }
+    }
+
+    /**
+     * Runs a planar filter: the source is split into channel planes once, every tile
+     * writes its region of a shared target plane set, and the result is packed once.
+     * Per-tile images are only materialised when a callback or statistics need them,
+     * or to copy each tile into a destination.
+     */
+    private ProcessedImage processPlanar(
+            BufferedImage image,
+            PlanarFilter filter,
+            TileGrid grid,
+            BufferedImage destination,
+            PerformanceMetrics metrics,
+            TileUpdateCallback callback,
+            boolean collectStatistics)
+            throws InterruptedException, ExecutionException {
+
+        PlanarImage source = PlanarImage.fromBufferedImage(image);
+        PlanarImage target = filter.createTarget(source);
+
+        HistogramAccumulatorPool histograms = collectStatistics ? new HistogramAccumulatorPool() : null;
+        grid.forEachTile(tile -> {
+            filter.filterTile(source, target, tile);
+            metrics.incrementProcessedTiles();
+
+            if (destination == null && histograms == null && callback == null) {
+                return;
+            }
+            BufferedImage processedTile = target.toBufferedImage(tile.x(), tile.y(), tile.width(), tile.height());
+            if (destination != null) {
+                processedTile = writeTile(destination, processedTile, tile);
+            }
+            finishTile(processedTile, tile, callback, histograms);
+        });
+
+        ImageStatistics statistics = histograms != null ? histograms.toStatistics() : null;
+        return new ProcessedImage(destination != null ? destination : target.toBufferedImage(), statistics);
+    }
+
+    /**
+     * Runs a filter that needs whole-image information: a parallel gather pass over the
+     * tile grid, a single reduce, then a parallel apply pass writing straight into the result.
+     */
+    private <P, M> ProcessedImage processTwoPass(
+            BufferedImage image,
+            TwoPassFilter<P, M> filter,
+            TileGrid grid,
+            BufferedImage destination,
+            PerformanceMetrics metrics,
+            TileUpdateCallback callback,
+            boolean collectStatistics)
+            throws InterruptedException, ExecutionException {
+
+        BufferedImage resultImage = destination != null
+                ? destination
+                : new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        HistogramAccumulatorPool histograms = collectStatistics ? new HistogramAccumulatorPool() : null;
+
+        grid.reduceThenMap(
+                tile -> filter.gather(image, tile),
+                partials -> filter.reduce(partials, grid),
+                (tile, model) -> {
+                    filter.apply(image, resultImage, tile, model);
+                    BufferedImage processedTile = resultImage.getSubimage(tile.x(), tile.y(), tile.width(), tile.height());
+                    metrics.incrementProcessedTiles();
+                    finishTile(processedTile, tile, callback, histograms);
+                });
+
+        ImageStatistics statistics = histograms != null ? histograms.toStatistics() : null;
+        return new ProcessedImage(resultImage, statistics);
+    }
+
+    /**
+     * Runs a geometric transform. The grid covers the output, whose size may differ
+     * from the source, and every tile inverse-maps its pixels straight into the result.
+     */
+    private ProcessedImage processTransform(
+            BufferedImage image,
+            GeometricTransform transform,
+            BufferedImage destination,
+            PerformanceMetrics metrics,
+            TileUpdateCallback callback,
+            boolean collectStatistics)
+            throws InterruptedException, ExecutionException {
+
+        GeometricTransform.Plan plan = destination != null ? transform.plan(image, destination) : transform.plan(image);
+        BufferedImage resultImage = plan.getResult();
+        TileGrid grid = gridFor(transform, plan.getWidth(), plan.getHeight());
+        metrics.setTotalTiles(grid.getTileCount());
+
+        HistogramAccumulatorPool histograms = collectStatistics ? new HistogramAccumulatorPool() : null;
+        grid.forEachTile(tile -> {
+            plan.transformTile(tile);
+            metrics.incrementProcessedTiles();
+
+            if (histograms != null || callback != null) {
+                BufferedImage processedTile = resultImage.getSubimage(tile.x(), tile.y(), tile.width(), tile.height());
+                finishTile(processedTile, tile, callback, histograms);
+            }
+        });
+
+        ImageStatistics statistics = histograms != null ? histograms.toStatistics() : null;
+        return new ProcessedImage(resultImage, statistics);
     }
 }
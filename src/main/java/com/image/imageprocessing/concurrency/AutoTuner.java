@@ -0,0 +1,208 @@
+package com.image.imageprocessing.concurrency;
+
+import com.image.imageprocessing.concurrency.TuningProfile.Settings;
+import com.image.imageprocessing.concurrency.TuningProfile.SizeClass;
+import com.image.imageprocessing.filter.FilterFactory;
+import com.image.imageprocessing.filter.ImageFilter;
+import com.image.imageprocessing.filter.TwoPassFilter;
+import com.image.imageprocessing.utils.PerformanceMetrics;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Micro-benchmarks filters across tile sizes and worker counts and records the
+ * fastest configuration per filter and size class in a {@link TuningProfile}.
+ *
+ * The search is one coordinate at a time: tile size first with one worker per core,
+ * then worker count at the best tile size. The untuned default ({@link ImageFilter#DEFAULT_TILE_SIZE},
+ * unlimited workers) is always one of the candidates, so tuned settings are never
+ * slower than the default within measurement noise.
+ */
+public class AutoTuner {
+
+    private static final int[] TILE_SIZES = {32, ImageFilter.DEFAULT_TILE_SIZE, 64, 128, 256};
+
+    private final int warmupRuns;
+    private final int measuredRuns;
+
+    /**
+     * Throughput of the default and tuned settings for one filter and size class.
+     */
+    public record Result(String filterName, SizeClass sizeClass, Settings tuned,
+                         double defaultMegapixelsPerSecond, double tunedMegapixelsPerSecond) {
+    }
+
+    public AutoTuner() {
+        this(1, 3);
+    }
+
+    public AutoTuner(int warmupRuns, int measuredRuns) {
+        if (measuredRuns <= 0) {
+            throw new IllegalArgumentException("At least one measured run is required");
+        }
+        this.warmupRuns = warmupRuns;
+        this.measuredRuns = measuredRuns;
+    }
+
+    /**
+     * Tunes every filter for every size class and stores the winners in the profile.
+     * Two-pass filters are skipped because their grid changes their output.
+     */
+    public List<Result> tune(Map<String, ImageFilter> filters, List<SizeClass> sizeClasses, TuningProfile profile)
+            throws InterruptedException, ExecutionException {
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] workerCounts = {0, Math.max(1, cores / 2), cores, cores * 2};
+        List<Result> results = new ArrayList<>();
+
+        for (SizeClass sizeClass : sizeClasses) {
+            BufferedImage sample = createSample(sizeClass.getBenchmarkWidth(), sizeClass.getBenchmarkHeight());
+
+            for (Map.Entry<String, ImageFilter> entry : filters.entrySet()) {
+                ImageFilter filter = entry.getValue();
+                if (filter instanceof TwoPassFilter<?, ?>) {
+                    continue;
+                }
+
+                // Discarded run so JIT warm-up is not charged to the default configuration
+                measure(filter, sample, ImageFilter.DEFAULT_TILE_SIZE, 0);
+                double defaultThroughput = measure(filter, sample, ImageFilter.DEFAULT_TILE_SIZE, 0);
+
+                int bestTileSize = ImageFilter.DEFAULT_TILE_SIZE;
+                double bestThroughput = 0;
+                for (int tileSize : TILE_SIZES) {
+                    double throughput = measure(filter, sample, tileSize, cores);
+                    if (throughput > bestThroughput) {
+                        bestThroughput = throughput;
+                        bestTileSize = tileSize;
+                    }
+                }
+
+                int bestWorkers = cores;
+                for (int workers : workerCounts) {
+                    if (workers == cores) {
+                        continue;
+                    }
+                    double throughput = measure(filter, sample, bestTileSize, workers);
+                    if (throughput > bestThroughput) {
+                        bestThroughput = throughput;
+                        bestWorkers = workers;
+                    }
+                }
+
+                Settings tuned = new Settings(bestTileSize, bestWorkers);
+                if (defaultThroughput >= bestThroughput) {
+                    tuned = new Settings(ImageFilter.DEFAULT_TILE_SIZE, 0);
+                    bestThroughput = defaultThroughput;
+                }
+
+                profile.put(filter.getClass(), sizeClass, tuned);
+                results.add(new Result(entry.getKey(), sizeClass, tuned, defaultThroughput, bestThroughput));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return Median throughput in megapixels per second
+     */
+    private double measure(ImageFilter filter, BufferedImage sample, int tileSize, int workers)
+            throws InterruptedException, ExecutionException {
+
+        AsyncImageProcessor processor = workers > 0
+                ? new AsyncImageProcessor(tileSize, new Semaphore(workers))
+                : new AsyncImageProcessor(tileSize);
+
+        for (int i = 0; i < warmupRuns; i++) {
+            processor.processWithStructuredConcurrency(sample, filter, new PerformanceMetrics(), null);
+        }
+
+        long[] timings = new long[measuredRuns];
+        for (int i = 0; i < measuredRuns; i++) {
+            long start = System.nanoTime();
+            processor.processWithStructuredConcurrency(sample, filter, new PerformanceMetrics(), null);
+            timings[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+
+        double megapixels = (double) sample.getWidth() * sample.getHeight() / 1_000_000.0;
+        return megapixels / (timings[measuredRuns / 2] / 1_000_000_000.0);
+    }
+
+    /**
+     * Smooth gradients with noise, so per-pixel work is not trivially predictable.
+     */
+    private static BufferedImage createSample(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = (x * 255 / width + random.nextInt(32)) & 0xFF;
+                int g = (y * 255 / height + random.nextInt(32)) & 0xFF;
+                int b = random.nextInt(256);
+                row[x] = (r << 16) | (g << 8) | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+    public static String formatReport(List<Result> results) {
+        StringBuilder report = new StringBuilder(String.format(
+                "%-18s %-7s %10s %12s %12s %8s%n",
+                "Filter", "Size", "Tuned", "Default MP/s", "Tuned MP/s", "Speedup"));
+        for (Result result : results) {
+            String workers = result.tuned().workers() > 0 ? Integer.toString(result.tuned().workers()) : "max";
+            report.append(String.format("%-18s %-7s %10s %12.1f %12.1f %7.2fx%n",
+                    result.filterName(),
+                    result.sizeClass(),
+                    result.tuned().tileSize() + "/" + workers,
+                    result.defaultMegapixelsPerSecond(),
+                    result.tunedMegapixelsPerSecond(),
+                    result.tunedMegapixelsPerSecond() / result.defaultMegapixelsPerSecond()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Tunes every filter in the factory (one instance per filter class) and saves the
+     * profile to {@link TuningProfile#DEFAULT_PATH}.
+     * Usage: {@code AutoTuner [SMALL|MEDIUM|LARGE]...}; all size classes by default.
+     */
+    public static void main(String[] args) throws Exception {
+        List<SizeClass> sizeClasses = new ArrayList<>();
+        for (String arg : args) {
+            sizeClasses.add(SizeClass.valueOf(arg.toUpperCase()));
+        }
+        if (sizeClasses.isEmpty()) {
+            sizeClasses.addAll(List.of(SizeClass.values()));
+        }
+
+        Map<String, ImageFilter> filters = new LinkedHashMap<>();
+        Set<Class<?>> seen = new HashSet<>();
+        for (String name : FilterFactory.getFilterNames()) {
+            ImageFilter filter = FilterFactory.create(name);
+            if (seen.add(filter.getClass())) {
+                filters.put(name, filter);
+            }
+        }
+
+        TuningProfile profile = TuningProfile.loadDefault();
+        List<Result> results = new AutoTuner().tune(filters, sizeClasses, profile);
+        profile.save(TuningProfile.DEFAULT_PATH);
+
+        System.out.print(formatReport(results));
+        System.out.println("Saved tuning profile to " + TuningProfile.DEFAULT_PATH);
+    }
+}
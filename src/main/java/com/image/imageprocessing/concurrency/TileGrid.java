@@ -0,0 +1,173 @@
+package com.image.imageprocessing.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.function.Function;
+
+/**
+ * Splits a rectangular area into fixed-size tiles and runs work over them
+ * in parallel using structured concurrency.
+ * Engines that do not go through the ImageFilter interface (pyramids,
+ * reductions, transforms) use this to share the same tiling as the processor.
+ */
+public final class TileGrid {
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final Semaphore cpuBudget;
+    private final List<Tile> tiles;
+
+    /**
+     * A single tile inside the grid, in pixel coordinates.
+     */
+    public record Tile(int x, int y, int width, int height) {
+    }
+
+    @FunctionalInterface
+    public interface TileTask {
+        void process(Tile tile) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface TileFunction<T> {
+        T apply(Tile tile) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ModelTileTask<M> {
+        void process(Tile tile, M model) throws Exception;
+    }
+
+    public TileGrid(int width, int height, int tileSize) {
+        this(width, height, tileSize, null);
+    }
+
+    /**
+     * @param cpuBudget Permits shared by every grid that should count against the same
+     *                  CPU budget; each tile holds one while it runs. Null means unlimited.
+     */
+    public TileGrid(int width, int height, int tileSize, Semaphore cpuBudget) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive: " + width + "x" + height);
+        }
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+        }
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.cpuBudget = cpuBudget;
+        this.tiles = buildTiles(width, height, tileSize);
+    }
+
+    private static List<Tile> buildTiles(int width, int height, int tileSize) {
+        int numHorizontalTiles = (width + tileSize - 1) / tileSize;
+        int numVerticalTiles = (height + tileSize - 1) / tileSize;
+        List<Tile> result = new ArrayList<>(numHorizontalTiles * numVerticalTiles);
+
+        for (int j = 0; j < numVerticalTiles; j++) {
+            for (int i = 0; i < numHorizontalTiles; i++) {
+                int x = i * tileSize;
+                int y = j * tileSize;
+                result.add(new Tile(x, y, Math.min(tileSize, width - x), Math.min(tileSize, height - y)));
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * Runs the task once per tile and waits for all tiles to finish.
+     * The first failing tile cancels the rest.
+     */
+    public void forEachTile(TileTask task) throws InterruptedException, ExecutionException {
+        mapTiles(tile -> {
+            task.process(tile);
+            return null;
+        });
+    }
+
+    /**
+     * Runs the function once per tile and returns the results in tile order.
+     */
+    public <T> List<T> mapTiles(TileFunction<T> function) throws InterruptedException, ExecutionException {
+        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+
+            List<StructuredTaskScope.Subtask<T>> tasks = new ArrayList<>(tiles.size());
+            for (Tile tile : tiles) {
+                tasks.add(scope.fork(() -> runWithinBudget(function, tile)));
+            }
+
+            scope.join();
+            scope.throwIfFailed();
+
+            List<T> results = new ArrayList<>(tasks.size());
+            for (var task : tasks) {
+                results.add(task.get());
+            }
+            return results;
+        }
+    }
+
+    private <T> T runWithinBudget(TileFunction<T> function, Tile tile) throws Exception {
+        if (cpuBudget == null) {
+            return function.apply(tile);
+        }
+        cpuBudget.acquire();
+        try {
+            return function.apply(tile);
+        } finally {
+            cpuBudget.release();
+        }
+    }
+
+    /**
+     * Two-phase execution: a parallel gather pass produces one partial result per tile,
+     * the partials are reduced once into a shared model, and a parallel apply pass then
+     * runs every tile against that model. Partials are passed to the reducer in tile order
+     * (row-major), so tile {@code (column, row)} is at index {@code row * getColumns() + column}.
+     *
+     * @return The reduced model, for callers that want to keep it
+     */
+    public <P, M> M reduceThenMap(TileFunction<P> gather,
+                                  Function<List<P>, M> reduce,
+                                  ModelTileTask<M> apply)
+            throws InterruptedException, ExecutionException {
+
+        List<P> partials = mapTiles(gather);
+        M model = reduce.apply(partials);
+        forEachTile(tile -> apply.process(tile, model));
+        return model;
+    }
+
+    public List<Tile> getTiles() {
+        return tiles;
+    }
+
+    public int getTileCount() {
+        return tiles.size();
+    }
+
+    public int getColumns() {
+        return (width + tileSize - 1) / tileSize;
+    }
+
+    public int getRows() {
+        return (height + tileSize - 1) / tileSize;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+}
@@ -0,0 +1,153 @@
+package com.image.imageprocessing.concurrency;
+
+import com.image.imageprocessing.filter.ImageFilter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tile size and worker count chosen per filter and image size class on this machine.
+ *
+ * Written by {@link AutoTuner} to a small properties file and read by
+ * {@link AsyncImageProcessor}. Entries are keyed by filter class name, so
+ * differently parameterised instances of the same filter share settings.
+ * A profile tuned on a machine with a different core count is ignored.
+ */
+public class TuningProfile {
+
+    public static final Path DEFAULT_PATH =
+            Paths.get(System.getProperty("user.home"), ".async-image-processing", "tuning.properties");
+
+    private static final String CORES_KEY = "machine.cores";
+
+    /**
+     * Coarse image size buckets; cost per pixel barely changes within one.
+     */
+    public enum SizeClass {
+        SMALL(640, 480),
+        MEDIUM(1920, 1080),
+        LARGE(3840, 2160);
+
+        private final int benchmarkWidth;
+        private final int benchmarkHeight;
+
+        SizeClass(int benchmarkWidth, int benchmarkHeight) {
+            this.benchmarkWidth = benchmarkWidth;
+            this.benchmarkHeight = benchmarkHeight;
+        }
+
+        public static SizeClass of(int width, int height) {
+            long pixels = (long) width * height;
+            if (pixels <= 1_000_000L) {
+                return SMALL;
+            }
+            return pixels <= 4_000_000L ? MEDIUM : LARGE;
+        }
+
+        /**
+         * A representative image size used when benchmarking this class.
+         */
+        public int getBenchmarkWidth() {
+            return benchmarkWidth;
+        }
+
+        public int getBenchmarkHeight() {
+            return benchmarkHeight;
+        }
+    }
+
+    /**
+     * @param tileSize Tile edge length in pixels
+     * @param workers Maximum tiles running at once, 0 for no limit
+     */
+    public record Settings(int tileSize, int workers) {
+    }
+
+    private final int cores = Runtime.getRuntime().availableProcessors();
+    private final Map<String, Settings> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the profile, or returns an empty one if the file is missing or was
+     * tuned on a machine with a different number of cores.
+     */
+    public static TuningProfile load(Path path) throws IOException {
+        TuningProfile profile = new TuningProfile();
+        if (!Files.exists(path)) {
+            return profile;
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        if (!Integer.toString(profile.cores).equals(properties.getProperty(CORES_KEY))) {
+            return profile;
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            if (key.equals(CORES_KEY)) {
+                continue;
+            }
+            String[] parts = properties.getProperty(key).split(",");
+            if (parts.length == 2) {
+                try {
+                    profile.entries.put(key, new Settings(
+                            Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())));
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring malformed tuning entry " + key + ": " + e.getMessage());
+                }
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Loads the default profile, treating an unreadable file as no profile.
+     */
+    public static TuningProfile loadDefault() {
+        try {
+            return load(DEFAULT_PATH);
+        } catch (IOException e) {
+            System.err.println("Error loading tuning profile: " + e.getMessage());
+            return new TuningProfile();
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Properties properties = new Properties();
+        properties.setProperty(CORES_KEY, Integer.toString(cores));
+        for (Map.Entry<String, Settings> entry : new TreeMap<>(entries).entrySet()) {
+            Settings settings = entry.getValue();
+            properties.setProperty(entry.getKey(), settings.tileSize() + "," + settings.workers());
+        }
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            properties.store(writer, "Async Image Processing tuning profile: tileSize,workers");
+        }
+    }
+
+    public Optional<Settings> lookup(ImageFilter filter, int width, int height) {
+        return Optional.ofNullable(entries.get(key(filter.getClass(), SizeClass.of(width, height))));
+    }
+
+    public void put(Class<? extends ImageFilter> filterClass, SizeClass sizeClass, Settings settings) {
+        entries.put(key(filterClass, sizeClass), settings);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    private static String key(Class<?> filterClass, SizeClass sizeClass) {
+        return filterClass.getSimpleName() + "." + sizeClass.name();
+    }
+}
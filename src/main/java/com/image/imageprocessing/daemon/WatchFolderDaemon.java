@@ -0,0 +1,501 @@
+package com.image.imageprocessing.daemon;
+
+import com.image.imageprocessing.concurrency.AsyncImageProcessor;
+import com.image.imageprocessing.concurrency.TuningProfile;
+import com.image.imageprocessing.dedup.HashIndex;
+import com.image.imageprocessing.dedup.PerceptualHash;
+import com.image.imageprocessing.filter.FilterFactory;
+import com.image.imageprocessing.filter.ImageFilter;
+import com.image.imageprocessing.utils.ImageIOUtil;
+import com.image.imageprocessing.utils.PerformanceMetrics;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches input directories and pushes every new image through the async processor.
+ *
+ * Files are picked up from {@link WatchService} events (plus one scan at start-up and
+ * after an event overflow) and parked until their size and modification time have been
+ * stable for the quiet period, so half-copied files are never decoded. Ready files wait
+ * in a queue of paths; at most {@code maxInFlight} images are decoded, filtered and
+ * encoded at once, which bounds memory no matter how large a burst is. Results are
+ * written atomically via temp file plus rename. A file that changes while it is queued
+ * or being processed is settled and processed again afterwards, even though its result
+ * is then newer than it. With a {@link HashIndex}, re-uploads and re-encodes of an image
+ * already processed get a copy of its earlier result.
+ */
+public class WatchFolderDaemon implements AutoCloseable {
+
+    private final List<Path> inputDirectories;
+    private final Map<Path, Path> outputDirectories;
+    private final ImageFilter filter;
+    private final String filterName;
+    private final Duration quietPeriod;
+    private final AsyncImageProcessor processor;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final HashIndex duplicateIndex;
+    private final int maxDuplicateDistance;
+
+    private final Map<Path, PendingFile> pending = new ConcurrentHashMap<>();
+    private final Set<Path> queuedOrRunning = ConcurrentHashMap.newKeySet();
+    private final Set<Path> changedWhileBusy = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<Path> readyQueue = new LinkedBlockingQueue<>();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+
+    private WatchService watchService;
+    private ScheduledExecutorService debounceScheduler;
+    private Thread watcherThread;
+    private Thread dispatcherThread;
+    private volatile boolean running;
+
+    /**
+     * @param rerun Changed while queued or running, so a result newer than the input is stale
+     */
+    private record PendingFile(long size, long modified, long lastChangeNanos, boolean rerun) {
+    }
+
+    public WatchFolderDaemon(List<Path> inputDirectories,
+                             Path outputDirectory,
+                             String filterName,
+                             int maxInFlight,
+                             Duration quietPeriod,
+                             int tileSize) {
+        this(inputDirectories, outputDirectory, filterName, maxInFlight, quietPeriod, tileSize, null, 0);
+    }
+
+    /**
+     * @param duplicateIndex Index of earlier results, or null to process every input
+     * @param maxDuplicateDistance Largest hash distance, in bits, still treated as a duplicate
+     */
+    public WatchFolderDaemon(List<Path> inputDirectories,
+                             Path outputDirectory,
+                             String filterName,
+                             int maxInFlight,
+                             Duration quietPeriod,
+                             int tileSize,
+                             HashIndex duplicateIndex,
+                             int maxDuplicateDistance) {
+        this(inputDirectories, outputDirectory, filterName, maxInFlight, quietPeriod, tileSize, null,
+                duplicateIndex, maxDuplicateDistance);
+    }
+
+    /**
+     * @param tuningProfile Tuned tile sizes and worker counts, or null to always use {@code tileSize}
+     * @param duplicateIndex Index of earlier results, or null to process every input
+     * @param maxDuplicateDistance Largest hash distance, in bits, still treated as a duplicate
+     */
+    public WatchFolderDaemon(List<Path> inputDirectories,
+                             Path outputDirectory,
+                             String filterName,
+                             int maxInFlight,
+                             Duration quietPeriod,
+                             int tileSize,
+                             TuningProfile tuningProfile,
+                             HashIndex duplicateIndex,
+                             int maxDuplicateDistance) {
+        this(inputDirectories, outputDirectory, filterName, FilterFactory.createStrict(filterName), maxInFlight,
+                quietPeriod, tileSize, tuningProfile, duplicateIndex, maxDuplicateDistance);
+    }
+
+    /**
+     * @param filter Applied to every input; {@code filterName} only names the outputs and index entries
+     */
+    WatchFolderDaemon(List<Path> inputDirectories,
+                      Path outputDirectory,
+                      String filterName,
+                      ImageFilter filter,
+                      int maxInFlight,
+                      Duration quietPeriod,
+                      int tileSize,
+                      TuningProfile tuningProfile,
+                      HashIndex duplicateIndex,
+                      int maxDuplicateDistance) {
+        if (inputDirectories.isEmpty()) {
+            throw new IllegalArgumentException("At least one input directory is required");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in-flight images must be positive: " + maxInFlight);
+        }
+        this.inputDirectories = List.copyOf(inputDirectories);
+        this.outputDirectories = outputDirectoriesFor(this.inputDirectories, outputDirectory);
+        this.filter = filter;
+        this.filterName = filterName;
+        this.quietPeriod = quietPeriod;
+        this.processor = new AsyncImageProcessor(tileSize, tuningProfile);
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.duplicateIndex = duplicateIndex;
+        this.maxDuplicateDistance = maxDuplicateDistance;
+    }
+
+    /**
+     * Registers the watchers, queues images already present and starts processing.
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        for (Path directory : outputDirectories.values()) {
+            Files.createDirectories(directory);
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path directory : inputDirectories) {
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        running = true;
+
+        for (Path directory : inputDirectories) {
+            scanDirectory(directory);
+        }
+
+        long tickMillis = Math.max(50, quietPeriod.toMillis() / 2);
+        debounceScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "WatchFolder-Debounce");
+            thread.setDaemon(true);
+            return thread;
+        });
+        debounceScheduler.scheduleWithFixedDelay(this::promoteStableFiles, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+
+        watcherThread = Thread.ofVirtual().name("WatchFolder-Watcher").start(this::watchLoop);
+        dispatcherThread = Thread.ofVirtual().name("WatchFolder-Dispatcher").start(this::dispatchLoop);
+    }
+
+    private void watchLoop() {
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Events were dropped during a burst; fall back to a full scan
+                    scanDirectory(directory);
+                } else {
+                    touch(directory.resolve((Path) event.context()));
+                }
+            }
+            key.reset();
+        }
+    }
+
+    private void scanDirectory(Path directory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                touch(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Error scanning " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records activity on a file; it becomes ready once it stops changing. A file that is
+     * queued or running is only flagged, and goes back to pending when it finishes.
+     */
+    private void touch(Path file) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(".") || name.endsWith(".tmp")
+                || !ImageIOUtil.isSupportedImageFormat(file.toFile())) {
+            return;
+        }
+        if (queuedOrRunning.contains(file)) {
+            // Flag first, then check again: finish() clears queuedOrRunning before reading the flag
+            changedWhileBusy.add(file);
+            if (queuedOrRunning.contains(file)) {
+                return;
+            }
+            changedWhileBusy.remove(file);
+        }
+        markPending(file, false);
+    }
+
+    private void markPending(Path file, boolean rerun) {
+        long now = System.nanoTime();
+        pending.merge(file, new PendingFile(-1, -1, now, rerun),
+                (previous, next) -> new PendingFile(-1, -1, now, previous.rerun() || rerun));
+    }
+
+    private void finish(Path file) {
+        queuedOrRunning.remove(file);
+        if (changedWhileBusy.remove(file)) {
+            markPending(file, true);
+        }
+    }
+
+    private void promoteStableFiles() {
+        long now = System.nanoTime();
+        for (Map.Entry<Path, PendingFile> entry : pending.entrySet()) {
+            Path file = entry.getKey();
+            PendingFile previous = entry.getValue();
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                long size = attributes.size();
+                long modified = attributes.lastModifiedTime().toMillis();
+
+                // Conditional updates, so a concurrent touch() or rerun flag is never overwritten
+                if (size != previous.size() || modified != previous.modified()) {
+                    pending.replace(file, previous, new PendingFile(size, modified, now, previous.rerun()));
+                } else if (now - previous.lastChangeNanos() >= quietPeriod.toNanos() && size > 0) {
+                    if (pending.remove(file, previous)
+                            && (previous.rerun() || !isUpToDate(file, modified))
+                            && queuedOrRunning.add(file)) {
+                        readyQueue.add(file);
+                    }
+                }
+            } catch (IOException e) {
+                // Deleted or renamed before it settled
+                pending.remove(file, previous);
+            }
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                Path file = readyQueue.take();
+                inFlight.acquire();
+                Thread.ofVirtual().name("WatchFolder-" + file.getFileName()).start(() -> {
+                    try {
+                        processFile(file);
+                    } finally {
+                        finish(file);
+                        inFlight.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void processFile(Path file) {
+        try {
+            Path output = outputPathFor(file);
+            PerceptualHash.Fingerprint fingerprint = null;
+            Optional<HashIndex.Entry> duplicate = Optional.empty();
+            if (duplicateIndex != null) {
+                // Hashed from a subsampled proxy: a duplicate is never decoded at full resolution
+                try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+                    fingerprint = duplicateIndex.getAlgorithm().fingerprint(in);
+                }
+                duplicate = duplicateIndex.findReusableResult(fingerprint.hash(), filterName, maxDuplicateDistance,
+                        fingerprint.width(), fingerprint.height());
+            }
+
+            if (duplicate.isPresent()) {
+                ImageIOUtil.copyAtomically(duplicate.get().outputPath(), output);
+                reusedCount.incrementAndGet();
+                processedCount.incrementAndGet();
+                System.out.println("Reused " + duplicate.get().outputPath().getFileName()
+                        + " for near-duplicate " + file.getFileName());
+                return;
+            }
+
+            BufferedImage image = ImageIOUtil.readImage(file.toString());
+            if (image == null) {
+                throw new IOException("Unreadable image");
+            }
+            PerformanceMetrics metrics = new PerformanceMetrics();
+            metrics.setFilterName(filterName);
+            BufferedImage result = processor.processWithStructuredConcurrency(image, filter, metrics, null);
+
+            ImageIOUtil.saveImageAtomically(result, output);
+            if (fingerprint != null) {
+                duplicateIndex.add(fingerprint.hash(), filterName, output.toAbsolutePath(),
+                        fingerprint.width(), fingerprint.height());
+            }
+            processedCount.incrementAndGet();
+            System.out.println("Processed " + file.getFileName() + " | " + metrics.toShortString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failedCount.incrementAndGet();
+            System.err.println("Error processing " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * With one input directory, outputs go straight into the output directory. With several,
+     * each gets its own subdirectory so that equally named files in different inputs do not
+     * share an output. No output directory may be watched as an input: its PNG results would
+     * be picked up and filtered again, without end.
+     */
+    private static Map<Path, Path> outputDirectoriesFor(List<Path> inputDirectories, Path outputDirectory) {
+        Set<Path> watched = new HashSet<>();
+        for (Path input : inputDirectories) {
+            watched.add(input.toAbsolutePath().normalize());
+        }
+        Map<Path, Path> directories = new HashMap<>();
+        for (Path input : inputDirectories) {
+            Path target = inputDirectories.size() == 1
+                    ? outputDirectory
+                    : outputDirectory.resolve(ImageIOUtil.inputRootDirectoryName(input));
+            if (watched.contains(target.toAbsolutePath().normalize())) {
+                throw new IllegalArgumentException("Output directory is also watched as input: " + target);
+            }
+            if (directories.put(input, target) != null) {
+                throw new IllegalArgumentException("Input directory given twice: " + input);
+            }
+        }
+        return directories;
+    }
+
+    /**
+     * Output name: {@code <input name>_<filter>.png} in the output directory of the input's root.
+     */
+    private Path outputPathFor(Path file) {
+        return outputDirectories.get(file.getParent())
+                .resolve(ImageIOUtil.filterOutputFileName(file.getFileName().toString(), filterName));
+    }
+
+    /**
+     * Skips inputs whose output is already newer, so restarts do not redo finished work.
+     */
+    private boolean isUpToDate(Path file, long inputModified) {
+        Path output = outputPathFor(file);
+        try {
+            return Files.exists(output) && Files.getLastModifiedTime(output).toMillis() >= inputModified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Processed images whose result was copied from a near-duplicate; included in {@link #getProcessedCount()}.
+     */
+    public long getReusedCount() {
+        return reusedCount.get();
+    }
+
+    /**
+     * Number of files seen but not yet finished: settling, queued or being processed.
+     */
+    public int getBacklog() {
+        return pending.size() + queuedOrRunning.size();
+    }
+
+    /**
+     * Stops watching and waits for images already being processed to finish.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        debounceScheduler.shutdownNow();
+        watchService.close();
+        watcherThread.interrupt();
+        dispatcherThread.interrupt();
+        try {
+            dispatcherThread.join();
+            // The dispatcher is gone, so holding every permit means nothing is still in flight
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Daemon entry point.
+     * Usage: {@code WatchFolderDaemon [--filter NAME] [--output DIR] [--max-in-flight N]
+     * [--dedup-index FILE] [--dedup-distance BITS] INPUT_DIR...}
+     */
+    public static void main(String[] args) throws Exception {
+        String filterName = "Grayscale";
+        Path output = Paths.get("output");
+        int maxInFlight = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        Path dedupIndex = null;
+        int dedupDistance = 4;
+        List<Path> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter" -> filterName = args[++i];
+                case "--output" -> output = Paths.get(args[++i]);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[++i]);
+                case "--dedup-index" -> dedupIndex = Paths.get(args[++i]);
+                case "--dedup-distance" -> dedupDistance = Integer.parseInt(args[++i]);
+                default -> inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Usage: WatchFolderDaemon [--filter NAME] [--output DIR] [--max-in-flight N] "
+                    + "[--dedup-index FILE] [--dedup-distance BITS] INPUT_DIR...");
+            System.exit(2);
+        }
+
+        HashIndex index = dedupIndex == null ? null : HashIndex.open(dedupIndex, PerceptualHash.PHASH);
+        WatchFolderDaemon daemon;
+        try {
+            daemon = new WatchFolderDaemon(
+                    inputs, output, filterName, maxInFlight, Duration.ofMillis(500), ImageFilter.DEFAULT_TILE_SIZE,
+                    TuningProfile.loadDefault(), index, dedupDistance);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.close();
+                if (index != null) {
+                    index.close();
+                }
+            } catch (IOException e) {
+                System.err.println("Error stopping daemon: " + e.getMessage());
+            }
+        }));
+        daemon.start();
+        System.out.println("Watching " + inputs + " -> " + output + " with " + filterName);
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,373 @@
+package com.image.imageprocessing.dedup;
+
+import com.image.imageprocessing.utils.ImageIOUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Perceptual hashes of processed images with the results they produced, searchable
+ * by Hamming distance and kept in a file between runs.
+ *
+ * Lookups use multi-index hashing. Each 64-bit hash is split into four 16-bit chunks,
+ * and each chunk position has a table from chunk value to the entries holding it.
+ * If two hashes are at most r bits apart, some chunk differs by at most r / 4 bits
+ * (pigeonhole), so a query only probes chunk values that close to its own. For the
+ * usual radii that is 4 or 68 probes, however large the index grows. Tables are
+ * linked lists threaded through int arrays, so an entry costs a few dozen bytes
+ * plus its output path.
+ *
+ * Each entry also records the source image's size and the output's size and CRC32C.
+ * A result is only reused for an image of the same dimensions, and only while its
+ * output file is still the one that was recorded.
+ *
+ * The file is an append-only log of entries. Each entry is flushed but not forced
+ * to disk: the index is a cache, so losing the last few entries only means those
+ * images are processed again. A torn last entry is dropped on open, and a file
+ * from an older version of the format is started over.
+ */
+public class HashIndex implements AutoCloseable {
+
+    private static final int MAGIC = 0x50484958; // "PHIX"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 9;
+    private static final int CHUNKS = 4;
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_VALUES = 1 << CHUNK_BITS;
+
+    /**
+     * One processed image.
+     *
+     * @param filterName The filter applied, as named in {@code FilterFactory}
+     * @param outputPath Where the result was written
+     * @param sourceWidth Width of the image the result was made from
+     * @param sourceHeight Height of the image the result was made from
+     * @param outputSize Length of the output file when it was recorded
+     * @param outputChecksum CRC32C of the output file's bytes
+     */
+    public record Entry(long hash, String filterName, Path outputPath, int sourceWidth, int sourceHeight,
+                        long outputSize, long outputChecksum) {
+    }
+
+    private final PerceptualHash algorithm;
+    private DataOutputStream log;
+
+    private long[] hashes = new long[1024];
+    private String[] filterNames = new String[1024];
+    private Path[] outputPaths = new Path[1024];
+    private int[] sourceWidths = new int[1024];
+    private int[] sourceHeights = new int[1024];
+    private long[] outputSizes = new long[1024];
+    private long[] outputChecksums = new long[1024];
+    private final int[][] heads = new int[CHUNKS][CHUNK_VALUES];
+    private final int[][] next = new int[CHUNKS][1024];
+    private final Map<String, String> filterNamePool = new HashMap<>();
+    private int size;
+    private boolean closed;
+
+    private HashIndex(PerceptualHash algorithm) {
+        this.algorithm = algorithm;
+        for (int[] table : heads) {
+            Arrays.fill(table, -1);
+        }
+    }
+
+    /**
+     * Opens the index file, creating it if needed, and loads its entries.
+     *
+     * @param algorithm The hash its entries use; an existing file built with another one is rejected
+     */
+    public static HashIndex open(Path path, PerceptualHash algorithm) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        HashIndex index = new HashIndex(algorithm);
+        long validLength = 0;
+        if (Files.exists(path)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                int magic = in.readInt();
+                int version = in.readInt();
+                int stored = in.readByte();
+                if (magic != MAGIC || version > VERSION || stored < 0 || stored >= PerceptualHash.values().length) {
+                    throw new IOException("Not a hash index: " + path);
+                }
+                if (version == VERSION) {
+                    if (stored != algorithm.ordinal()) {
+                        throw new IllegalArgumentException("Index " + path + " holds "
+                                + PerceptualHash.values()[stored] + " hashes, not " + algorithm);
+                    }
+                    validLength = HEADER_BYTES + index.load(in);
+                }
+                // Older entries cannot be verified before reuse, so the file starts over
+            } catch (EOFException e) {
+                // Empty, or the header itself was torn: start over
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(validLength);
+        }
+        index.log = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.APPEND)));
+        if (validLength == 0) {
+            index.log.writeInt(MAGIC);
+            index.log.writeInt(VERSION);
+            index.log.writeByte(algorithm.ordinal());
+            index.log.flush();
+        }
+        return index;
+    }
+
+    /**
+     * Reads entries until the end of the log.
+     *
+     * @return Length in bytes of the complete entries read
+     */
+    private long load(DataInputStream in) throws IOException {
+        long length = 0;
+        while (true) {
+            try {
+                long hash = in.readLong();
+                String filterName = readString(in);
+                String outputPath = readString(in);
+                int sourceWidth = in.readInt();
+                int sourceHeight = in.readInt();
+                long outputSize = in.readLong();
+                long outputChecksum = in.readLong();
+                insert(new Entry(hash, filterName, Paths.get(outputPath), sourceWidth, sourceHeight,
+                        outputSize, outputChecksum));
+                length += 8 + 4 + utf8Length(filterName) + 4 + utf8Length(outputPath) + 4 + 4 + 8 + 8;
+            } catch (EOFException e) {
+                return length;
+            }
+        }
+    }
+
+    public PerceptualHash getAlgorithm() {
+        return algorithm;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Records a processed image and appends it to the file. The output must already be
+     * written: its size and checksum are recorded so later reuse can tell if it changed.
+     *
+     * @param sourceWidth Width of the image the output was made from
+     * @param sourceHeight Height of the image the output was made from
+     */
+    public void add(long hash, String filterName, Path outputPath, int sourceWidth, int sourceHeight)
+            throws IOException {
+        Entry entry = new Entry(hash, filterName, outputPath, sourceWidth, sourceHeight,
+                Files.size(outputPath), ImageIOUtil.checksum(outputPath));
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Index is closed");
+            }
+            insert(entry);
+            log.writeLong(hash);
+            writeString(log, filterName);
+            writeString(log, outputPath.toString());
+            log.writeInt(sourceWidth);
+            log.writeInt(sourceHeight);
+            log.writeLong(entry.outputSize());
+            log.writeLong(entry.outputChecksum());
+            log.flush();
+        }
+    }
+
+    /**
+     * Finds the closest entry within {@code radius} bits of the hash that the predicate
+     * accepts, e.g. one for the same filter whose output still exists. The predicate
+     * runs outside the index lock, so a slow check such as checksumming an output
+     * does not hold up other lookups or additions.
+     */
+    public Optional<Entry> findNearest(long hash, int radius, Predicate<Entry> accept) {
+        for (Entry candidate : candidates(hash, radius)) {
+            if (accept.test(candidate)) {
+                return Optional.of(candidate);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Every entry within {@code radius} bits of the hash, closest first.
+     */
+    private synchronized List<Entry> candidates(long hash, int radius) {
+        if (radius < 0 || radius > Long.SIZE) {
+            throw new IllegalArgumentException("Radius must be in [0, 64]: " + radius);
+        }
+        int chunkRadius = radius / CHUNKS;
+        List<Entry> candidates = new ArrayList<>();
+
+        for (int table = 0; table < CHUNKS; table++) {
+            int chunk = chunk(hash, table);
+            for (int probe : neighbours(chunk, chunkRadius)) {
+                for (int i = heads[table][probe]; i >= 0; i = next[table][i]) {
+                    if (seenInEarlierTable(i, hash, table, chunkRadius)
+                            || PerceptualHash.distance(hash, hashes[i]) > radius) {
+                        continue;
+                    }
+                    candidates.add(new Entry(hashes[i], filterNames[i], outputPaths[i],
+                            sourceWidths[i], sourceHeights[i], outputSizes[i], outputChecksums[i]));
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingInt(entry -> PerceptualHash.distance(hash, entry.hash())));
+        return candidates;
+    }
+
+    /**
+     * The closest earlier result of the same filter, made from an image of the same
+     * dimensions, within {@code radius} bits. Its output file must still have the size
+     * and checksum recorded for it; one that has since been overwritten is skipped.
+     */
+    public Optional<Entry> findReusableResult(long hash, String filterName, int radius, int width, int height) {
+        return findNearest(hash, radius, entry -> entry.filterName().equals(filterName)
+                && entry.sourceWidth() == width
+                && entry.sourceHeight() == height
+                && isUnchanged(entry));
+    }
+
+    private static boolean isUnchanged(Entry entry) {
+        try {
+            return Files.isRegularFile(entry.outputPath())
+                    && Files.size(entry.outputPath()) == entry.outputSize()
+                    && ImageIOUtil.checksum(entry.outputPath()) == entry.outputChecksum();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * An entry whose chunk in an earlier table is also within range was already
+     * considered when that table was probed.
+     */
+    private boolean seenInEarlierTable(int entry, long hash, int table, int chunkRadius) {
+        for (int earlier = 0; earlier < table; earlier++) {
+            if (Integer.bitCount(chunk(hashes[entry], earlier) ^ chunk(hash, earlier)) <= chunkRadius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void insert(Entry entry) {
+        if (size == hashes.length) {
+            int capacity = size * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            filterNames = Arrays.copyOf(filterNames, capacity);
+            outputPaths = Arrays.copyOf(outputPaths, capacity);
+            sourceWidths = Arrays.copyOf(sourceWidths, capacity);
+            sourceHeights = Arrays.copyOf(sourceHeights, capacity);
+            outputSizes = Arrays.copyOf(outputSizes, capacity);
+            outputChecksums = Arrays.copyOf(outputChecksums, capacity);
+            for (int table = 0; table < CHUNKS; table++) {
+                next[table] = Arrays.copyOf(next[table], capacity);
+            }
+        }
+        long hash = entry.hash();
+        hashes[size] = hash;
+        filterNames[size] = filterNamePool.computeIfAbsent(entry.filterName(), name -> name);
+        outputPaths[size] = entry.outputPath();
+        sourceWidths[size] = entry.sourceWidth();
+        sourceHeights[size] = entry.sourceHeight();
+        outputSizes[size] = entry.outputSize();
+        outputChecksums[size] = entry.outputChecksum();
+        for (int table = 0; table < CHUNKS; table++) {
+            int chunk = chunk(hash, table);
+            next[table][size] = heads[table][chunk];
+            heads[table][chunk] = size;
+        }
+        size++;
+    }
+
+    private static int chunk(long hash, int table) {
+        return (int) (hash >>> (table * CHUNK_BITS)) & (CHUNK_VALUES - 1);
+    }
+
+    /**
+     * Every 16-bit value within {@code radius} bits of the chunk, the chunk itself first.
+     */
+    private static int[] neighbours(int chunk, int radius) {
+        int count = 0;
+        for (int d = 0; d <= Math.min(radius, CHUNK_BITS); d++) {
+            count += binomial(CHUNK_BITS, d);
+        }
+        int[] values = new int[count];
+        int[] filled = {0};
+        collectNeighbours(chunk, 0, Math.min(radius, CHUNK_BITS), values, filled);
+        return values;
+    }
+
+    private static void collectNeighbours(int value, int fromBit, int flipsLeft, int[] values, int[] filled) {
+        values[filled[0]++] = value;
+        if (flipsLeft == 0) {
+            return;
+        }
+        for (int bit = fromBit; bit < CHUNK_BITS; bit++) {
+            collectNeighbours(value ^ (1 << bit), bit + 1, flipsLeft - 1, values, filled);
+        }
+    }
+
+    private static int binomial(int n, int k) {
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return (int) result;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > 1 << 16) {
+            // A torn write can leave garbage where a length should be
+            throw new EOFException("Bad string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        log.close();
+    }
+}
@@ -0,0 +1,113 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+import com.image.imageprocessing.stats.SummedAreaTable;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Binarises by comparing each pixel's luma with a threshold taken from its own
+ * (2 * radius + 1)² neighbourhood, which copes with shadows and uneven lighting in scans.
+ *
+ * The gather pass computes luma per tile and the reduce step builds a
+ * {@link SummedAreaTable} from it in parallel. The apply pass then gets every
+ * window mean (and, for Sauvola, the variance) in O(1), so the window size does
+ * not affect the cost per pixel. Windows are clipped at the image border.
+ */
+public class AdaptiveThresholdFilter implements TwoPassFilter<int[], SummedAreaTable> {
+
+    public enum Method {
+        /** Dark if luma is more than {@code sensitivity} (a fraction) below the local mean. */
+        BRADLEY,
+        /** Threshold {@code mean * (1 + k * (stddev / 128 - 1))} with k = {@code sensitivity}. */
+        SAUVOLA
+    }
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+    private static final double DYNAMIC_RANGE = 128.0;
+
+    private final Method method;
+    private final int radius;
+    private final double sensitivity;
+
+    public AdaptiveThresholdFilter(Method method) {
+        this(method, 15, method == Method.BRADLEY ? 0.15 : 0.34);
+    }
+
+    public AdaptiveThresholdFilter(Method method, int radius, double sensitivity) {
+        if (radius < 1) {
+            throw new IllegalArgumentException("Radius must be at least 1: " + radius);
+        }
+        if (sensitivity < 0 || sensitivity >= 1) {
+            throw new IllegalArgumentException("Sensitivity must be in [0, 1): " + sensitivity);
+        }
+        this.method = method;
+        this.radius = radius;
+        this.sensitivity = sensitivity;
+    }
+
+    @Override
+    public int[] gather(BufferedImage source, TileGrid.Tile tile) {
+        int[] luma = new int[tile.width() * tile.height()];
+        source.getRGB(tile.x(), tile.y(), tile.width(), tile.height(), luma, 0, tile.width());
+        for (int i = 0; i < luma.length; i++) {
+            luma[i] = LumaRemap.luma(luma[i]);
+        }
+        return luma;
+    }
+
+    @Override
+    public SummedAreaTable reduce(List<int[]> partials, TileGrid grid) {
+        int tileSize = grid.getTileSize();
+        int columns = grid.getColumns();
+        try {
+            return SummedAreaTable.build(grid.getWidth(), grid.getHeight(), (y, row) -> {
+                int tileRow = y / tileSize;
+                int offsetInTile = y - tileRow * tileSize;
+                for (int column = 0; column < columns; column++) {
+                    TileGrid.Tile tile = grid.getTiles().get(tileRow * columns + column);
+                    System.arraycopy(partials.get(tileRow * columns + column), offsetInTile * tile.width(),
+                            row, tile.x(), tile.width());
+                }
+            }, method == Method.SAUVOLA);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Summed-area table build interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Summed-area table build failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public void apply(BufferedImage source, BufferedImage target, TileGrid.Tile tile, SummedAreaTable table) {
+        int width = table.getWidth();
+        int height = table.getHeight();
+        int[] row = new int[tile.width()];
+
+        for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+            int y0 = Math.max(0, y - radius);
+            int y1 = Math.min(height, y + radius + 1);
+            for (int x = tile.x(); x < tile.x() + tile.width(); x++) {
+                int x0 = Math.max(0, x - radius);
+                int x1 = Math.min(width, x + radius + 1);
+                // A 1x1 rectangle of the table is the pixel's own luma
+                long luma = table.sum(x, y, x + 1, y + 1);
+                long count = (long) (x1 - x0) * (y1 - y0);
+
+                boolean dark;
+                if (method == Method.BRADLEY) {
+                    dark = luma * count < table.sum(x0, y0, x1, y1) * (1 - sensitivity);
+                } else {
+                    double mean = table.mean(x0, y0, x1, y1);
+                    double deviation = Math.sqrt(table.variance(x0, y0, x1, y1));
+                    dark = luma <= mean * (1 + sensitivity * (deviation / DYNAMIC_RANGE - 1));
+                }
+                row[x - tile.x()] = dark ? BLACK : WHITE;
+            }
+            target.setRGB(tile.x(), y, tile.width(), 1, row, 0, tile.width());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+import com.image.imageprocessing.stats.HistogramAccumulator;
+import com.image.imageprocessing.stats.ImageStatistics;
+import com.image.imageprocessing.stats.ImageStatistics.Channel;
+import com.image.imageprocessing.stats.StatisticsCollector;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Stretches each colour channel so its low and high percentiles span the full 0..255 range.
+ * Unlike a fixed ContrastFilter factor, the stretch adapts to the image:
+ * a tile-parallel histogram pass picks the levels, a second pass applies them.
+ */
+public class AutoLevelsFilter implements TwoPassFilter<HistogramAccumulator, int[][]> {
+
+    private final double clipFraction;
+
+    /**
+     * Clips 0.5% of the pixels at each end of every channel.
+     */
+    public AutoLevelsFilter() {
+        this(0.005);
+    }
+
+    /**
+     * @param clipFraction Fraction of pixels allowed to saturate at each end, 0.0 to 0.25
+     */
+    public AutoLevelsFilter(double clipFraction) {
+        if (clipFraction < 0.0 || clipFraction > 0.25) {
+            throw new IllegalArgumentException("Clip fraction must be between 0 and 0.25: " + clipFraction);
+        }
+        this.clipFraction = clipFraction;
+    }
+
+    @Override
+    public HistogramAccumulator gather(BufferedImage source, TileGrid.Tile tile) {
+        HistogramAccumulator accumulator = new HistogramAccumulator();
+        int[] row = new int[tile.width()];
+        for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+            source.getRGB(tile.x(), y, tile.width(), 1, row, 0, tile.width());
+            accumulator.accumulate(row, 0, tile.width());
+        }
+        return accumulator;
+    }
+
+    @Override
+    public int[][] reduce(List<HistogramAccumulator> partials, TileGrid grid) {
+        ImageStatistics statistics = StatisticsCollector.merge(partials);
+        return new int[][] {
+            levelsLut(statistics, Channel.RED),
+            levelsLut(statistics, Channel.GREEN),
+            levelsLut(statistics, Channel.BLUE)
+        };
+    }
+
+    private int[] levelsLut(ImageStatistics statistics, Channel channel) {
+        int low = statistics.getPercentile(channel, clipFraction);
+        int high = statistics.getPercentile(channel, 1.0 - clipFraction);
+        int[] lut = new int[256];
+        if (high <= low) {
+            for (int i = 0; i < 256; i++) {
+                lut[i] = i;
+            }
+            return lut;
+        }
+        double scale = 255.0 / (high - low);
+        for (int i = 0; i < 256; i++) {
+            lut[i] = LumaRemap.clamp((int) Math.round((i - low) * scale));
+        }
+        return lut;
+    }
+
+    @Override
+    public void apply(BufferedImage source, BufferedImage target, TileGrid.Tile tile, int[][] luts) {
+        int[] red = luts[0];
+        int[] green = luts[1];
+        int[] blue = luts[2];
+        int[] row = new int[tile.width()];
+        for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+            source.getRGB(tile.x(), y, tile.width(), 1, row, 0, tile.width());
+            for (int i = 0; i < row.length; i++) {
+                int rgb = row[i];
+                row[i] = 0xFF000000
+                        | (red[(rgb >> 16) & 0xFF] << 16)
+                        | (green[(rgb >> 8) & 0xFF] << 8)
+                        | blue[rgb & 0xFF];
+            }
+            target.setRGB(tile.x(), y, tile.width(), 1, row, 0, tile.width());
+        }
+    }
+}
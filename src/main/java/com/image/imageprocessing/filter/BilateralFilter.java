@@ -0,0 +1,123 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+import com.image.imageprocessing.raster.PlanarImage;
+
+/**
+ * Edge-preserving smoothing: every neighbour in a (2 * radius + 1)² window is weighted
+ * by its distance (Gaussian, sigmaSpatial) and by how different its colour is
+ * (Gaussian on the summed absolute RGB difference, sigmaRange), so pixels across a
+ * strong edge barely contribute. Edge pixels are repeated outside the image.
+ *
+ * Both Gaussians are tabulated in the constructor, so the inner loop is two
+ * table lookups and a multiply per neighbour.
+ */
+public class BilateralFilter implements PlanarFilter {
+
+    private static final int MAX_COLOUR_DISTANCE = 3 * 255;
+
+    private final int radius;
+    private final float[] spatialWeights;
+    private final float[] rangeWeights;
+
+    public BilateralFilter() {
+        this(3, 2.0, 25.0);
+    }
+
+    /**
+     * @param radius Window radius in pixels
+     * @param sigmaSpatial Spatial standard deviation in pixels
+     * @param sigmaRange Range standard deviation in intensity levels per channel
+     */
+    public BilateralFilter(int radius, double sigmaSpatial, double sigmaRange) {
+        if (radius < 1) {
+            throw new IllegalArgumentException("Radius must be at least 1: " + radius);
+        }
+        if (sigmaSpatial <= 0 || sigmaRange <= 0) {
+            throw new IllegalArgumentException("Sigmas must be positive: " + sigmaSpatial + ", " + sigmaRange);
+        }
+        this.radius = radius;
+
+        int size = 2 * radius + 1;
+        this.spatialWeights = new float[size * size];
+        for (int dy = -radius; dy <= radius; dy++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                spatialWeights[(dy + radius) * size + dx + radius] =
+                        (float) Math.exp(-(dx * dx + dy * dy) / (2 * sigmaSpatial * sigmaSpatial));
+            }
+        }
+
+        // Indexed by |dr| + |dg| + |db|; one third of that is the mean channel difference
+        this.rangeWeights = new float[MAX_COLOUR_DISTANCE + 1];
+        for (int d = 0; d <= MAX_COLOUR_DISTANCE; d++) {
+            double mean = d / 3.0;
+            rangeWeights[d] = (float) Math.exp(-(mean * mean) / (2 * sigmaRange * sigmaRange));
+        }
+    }
+
+    @Override
+    public void filterTile(PlanarImage source, PlanarImage target, TileGrid.Tile tile) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        byte[] red = source.getRed();
+        byte[] green = source.getGreen();
+        byte[] blue = source.getBlue();
+        int size = 2 * radius + 1;
+
+        // Clamped row offsets and columns for every tap the tile can reach
+        int[] rowOffsets = new int[tile.height() + 2 * radius];
+        for (int i = 0; i < rowOffsets.length; i++) {
+            rowOffsets[i] = clamp(tile.y() - radius + i, height) * width;
+        }
+        int[] columns = new int[tile.width() + 2 * radius];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = clamp(tile.x() - radius + i, width);
+        }
+
+        for (int ty = 0; ty < tile.height(); ty++) {
+            int centreRow = rowOffsets[ty + radius];
+            for (int tx = 0; tx < tile.width(); tx++) {
+                int centre = centreRow + columns[tx + radius];
+                int r0 = red[centre] & 0xFF;
+                int g0 = green[centre] & 0xFF;
+                int b0 = blue[centre] & 0xFF;
+
+                float sumR = 0;
+                float sumG = 0;
+                float sumB = 0;
+                float sumWeight = 0;
+                for (int ky = 0; ky < size; ky++) {
+                    int row = rowOffsets[ty + ky];
+                    int weightRow = ky * size;
+                    for (int kx = 0; kx < size; kx++) {
+                        int i = row + columns[tx + kx];
+                        int r = red[i] & 0xFF;
+                        int g = green[i] & 0xFF;
+                        int b = blue[i] & 0xFF;
+                        float weight = spatialWeights[weightRow + kx]
+                                * rangeWeights[Math.abs(r - r0) + Math.abs(g - g0) + Math.abs(b - b0)];
+                        sumR += weight * r;
+                        sumG += weight * g;
+                        sumB += weight * b;
+                        sumWeight += weight;
+                    }
+                }
+
+                // The centre tap has weight 1, so sumWeight is never zero
+                int out = centreRow + columns[tx + radius];
+                target.getRed()[out] = (byte) Math.round(sumR / sumWeight);
+                target.getGreen()[out] = (byte) Math.round(sumG / sumWeight);
+                target.getBlue()[out] = (byte) Math.round(sumB / sumWeight);
+            }
+        }
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    @Override
+    public int haloRadius() {
+        return radius;
+    }
+}
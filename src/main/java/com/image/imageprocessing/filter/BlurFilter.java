@@ -1,47 +1,65 @@
 package com.image.imageprocessing.filter;
 
-import java.awt.*;
-import java.awt.image.BufferedImage;
+import com.image.imageprocessing.concurrency.TileGrid;
+import com.image.imageprocessing.raster.PlanarImage;
 
-public class BlurFilter implements ImageFilter {
+/**
+ * Box blur over a (2 * radius + 1)² window, averaging only the pixels inside the image.
+ * Runs on channel planes as a separable horizontal then vertical sum.
+ */
+public class BlurFilter implements PlanarFilter {
+
+    private static final int RADIUS = 2;
 
     @Override
-    public BufferedImage filter(BufferedImage originalImage) {
-        int width = originalImage.getWidth();
-        int height = originalImage.getHeight();
-
-        BufferedImage blurredImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-        int radius = 2;
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int sumR = 0, sumG = 0, sumB = 0;
-                int count = 0;
-
-                for (int dy = -radius; dy <= radius; dy++) {
-                    for (int dx = -radius; dx <= radius; dx++) {
-                        int nx = x + dx;
-                        int ny = y + dy;
-
-                        if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
-                            int rgb = originalImage.getRGB(nx, ny);
-                            sumR += (rgb >> 16) & 0xFF;
-                            sumG += (rgb >> 8) & 0xFF;
-                            sumB += rgb & 0xFF;
-                            count++;
-                        }
-                    }
-                }
+    public void filterTile(PlanarImage source, PlanarImage target, TileGrid.Tile tile) {
+        blurPlane(source.getRed(), target.getRed(), source.getWidth(), source.getHeight(), tile);
+        blurPlane(source.getGreen(), target.getGreen(), source.getWidth(), source.getHeight(), tile);
+        blurPlane(source.getBlue(), target.getBlue(), source.getWidth(), source.getHeight(), tile);
+    }
 
-                int avgR = sumR / count;
-                int avgG = sumG / count;
-                int avgB = sumB / count;
+    private void blurPlane(byte[] src, byte[] dst, int width, int height, TileGrid.Tile tile) {
+        int x0 = tile.x();
+        int x1 = tile.x() + tile.width();
+        int rowStart = Math.max(0, tile.y() - RADIUS);
+        int rowEnd = Math.min(height, tile.y() + tile.height() + RADIUS);
+
+        // Horizontal sums for every row the tile's vertical window touches
+        int[] rowSums = new int[(rowEnd - rowStart) * tile.width()];
+        int[] columnCounts = new int[tile.width()];
+        for (int x = x0; x < x1; x++) {
+            columnCounts[x - x0] = Math.min(width - 1, x + RADIUS) - Math.max(0, x - RADIUS) + 1;
+        }
+        for (int y = rowStart; y < rowEnd; y++) {
+            int srcRow = y * width;
+            int sumRow = (y - rowStart) * tile.width();
+            for (int x = x0; x < x1; x++) {
+                int from = Math.max(0, x - RADIUS);
+                int to = Math.min(width - 1, x + RADIUS);
+                int sum = 0;
+                for (int k = from; k <= to; k++) {
+                    sum += src[srcRow + k] & 0xFF;
+                }
+                rowSums[sumRow + x - x0] = sum;
+            }
+        }
 
-                int newRgb = new Color(avgR, avgG, avgB).getRGB();
-                blurredImage.setRGB(x, y, newRgb);
+        for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+            int from = Math.max(0, y - RADIUS);
+            int to = Math.min(height - 1, y + RADIUS);
+            int rowCount = to - from + 1;
+            for (int x = x0; x < x1; x++) {
+                int sum = 0;
+                for (int k = from; k <= to; k++) {
+                    sum += rowSums[(k - rowStart) * tile.width() + x - x0];
+                }
+                dst[y * width + x] = (byte) (sum / (rowCount * columnCounts[x - x0]));
             }
         }
-        return blurredImage;
+    }
+
+    @Override
+    public int haloRadius() {
+        return RADIUS;
     }
 }
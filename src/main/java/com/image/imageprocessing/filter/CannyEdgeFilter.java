@@ -0,0 +1,399 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Canny edge detector producing thin, connected white edges on black.
+ *
+ * Gather pass, per tile: fused grayscale + 5x5 Gaussian, Sobel gradients, non-maximum
+ * suppression along the quantised gradient direction and double-threshold
+ * classification. The tile reads a {@value #HALO}-pixel halo from the source so its
+ * pixels match a whole-image run exactly. It then labels connected weak/strong pixels
+ * inside the tile (8-connected union-find) and records which labels contain a strong pixel.
+ *
+ * Reduce: tile labels that touch across tile borders are unioned and a merged
+ * component is strong if any part of it is. Only border pixels and component
+ * counts are visited, so this stays cheap.
+ *
+ * Apply pass, per tile: a weak or strong pixel becomes an edge iff its component is strong.
+ * This is exactly sequential hysteresis (weak pixels connected to a strong one),
+ * independent of the tile size.
+ */
+public class CannyEdgeFilter implements TwoPassFilter<CannyEdgeFilter.TileEdges, CannyEdgeFilter.Components> {
+
+    /** Gaussian radius (2) + Sobel radius (1) + suppression radius (1). */
+    private static final int HALO = 4;
+
+    private static final int[] GAUSSIAN = {1, 4, 6, 4, 1};
+
+    private final int lowThresholdSquared;
+    private final int highThresholdSquared;
+
+    public CannyEdgeFilter() {
+        this(30, 80);
+    }
+
+    /**
+     * @param lowThreshold Gradient magnitude a pixel needs to be kept when connected to an edge
+     * @param highThreshold Gradient magnitude that makes a pixel an edge on its own
+     */
+    public CannyEdgeFilter(int lowThreshold, int highThreshold) {
+        if (lowThreshold < 0 || highThreshold < lowThreshold) {
+            throw new IllegalArgumentException(
+                    "Thresholds must satisfy 0 <= low <= high: " + lowThreshold + ", " + highThreshold);
+        }
+        // Magnitudes are compared squared, so no square root is taken per pixel
+        this.lowThresholdSquared = lowThreshold * lowThreshold;
+        this.highThresholdSquared = highThreshold * highThreshold;
+    }
+
+    /**
+     * Per-tile result of the gather pass.
+     *
+     * @param component Per tile pixel: local component number, or -1 if not an edge candidate
+     * @param componentStrong Per local component: whether it contains a strong pixel
+     */
+    public record TileEdges(TileGrid.Tile tile, int[] component, boolean[] componentStrong) {
+    }
+
+    /**
+     * Gather results plus, per tile, whether each local component ended up strong.
+     * Tiles are row-major like the grid.
+     */
+    public record Components(List<TileEdges> tiles, List<boolean[]> strong, int columns, int tileSize) {
+    }
+
+    @Override
+    public TileEdges gather(BufferedImage source, TileGrid.Tile tile) {
+        int imageWidth = source.getWidth();
+        int imageHeight = source.getHeight();
+
+        // Region = tile plus halo, clamped to the image
+        int rx = Math.max(0, tile.x() - HALO);
+        int ry = Math.max(0, tile.y() - HALO);
+        int rw = Math.min(imageWidth, tile.x() + tile.width() + HALO) - rx;
+        int rh = Math.min(imageHeight, tile.y() + tile.height() + HALO) - ry;
+
+        int[] smoothed = grayscaleGaussian(source, rx, ry, rw, rh);
+
+        // Gradients for the tile plus a 1-pixel ring, which suppression needs
+        int gx0 = Math.max(0, tile.x() - 1) - rx;
+        int gy0 = Math.max(0, tile.y() - 1) - ry;
+        int gx1 = Math.min(imageWidth, tile.x() + tile.width() + 1) - rx;
+        int gy1 = Math.min(imageHeight, tile.y() + tile.height() + 1) - ry;
+        int[] gradX = new int[rw * rh];
+        int[] gradY = new int[rw * rh];
+        int[] magnitude = new int[rw * rh];
+
+        for (int y = gy0; y < gy1; y++) {
+            int up = Math.max(0, y - 1) * rw;
+            int mid = y * rw;
+            int down = Math.min(rh - 1, y + 1) * rw;
+            for (int x = gx0; x < gx1; x++) {
+                int left = Math.max(0, x - 1);
+                int right = Math.min(rw - 1, x + 1);
+                int gx = (smoothed[up + right] + 2 * smoothed[mid + right] + smoothed[down + right])
+                        - (smoothed[up + left] + 2 * smoothed[mid + left] + smoothed[down + left]);
+                int gy = (smoothed[down + left] + 2 * smoothed[down + x] + smoothed[down + right])
+                        - (smoothed[up + left] + 2 * smoothed[up + x] + smoothed[up + right]);
+                gradX[mid + x] = gx;
+                gradY[mid + x] = gy;
+                magnitude[mid + x] = gx * gx + gy * gy;
+            }
+        }
+
+        // Non-maximum suppression + double threshold: 0 none, 1 weak, 2 strong
+        int tw = tile.width();
+        int th = tile.height();
+        byte[] classes = new byte[tw * th];
+        for (int ty = 0; ty < th; ty++) {
+            int y = tile.y() + ty - ry;
+            for (int tx = 0; tx < tw; tx++) {
+                int x = tile.x() + tx - rx;
+                int i = y * rw + x;
+                int m = magnitude[i];
+                if (m < lowThresholdSquared) {
+                    continue;
+                }
+                if (isLocalMaximum(magnitude, gradX[i], gradY[i], x, y, rw, rh, gx0, gy0, gx1, gy1)) {
+                    classes[ty * tw + tx] = (byte) (m >= highThresholdSquared ? 2 : 1);
+                }
+            }
+        }
+
+        return labelComponents(tile, classes);
+    }
+
+    /**
+     * Luma of the region, smoothed with a separable 5x5 binomial kernel (sum 256).
+     * Samples outside the region are clamped to its edge; on interior sides the halo
+     * is wide enough that clamped samples never reach the tile's gradients.
+     */
+    private int[] grayscaleGaussian(BufferedImage source, int rx, int ry, int rw, int rh) {
+        int[] gray = new int[rw * rh];
+        int[] row = new int[rw];
+        for (int y = 0; y < rh; y++) {
+            source.getRGB(rx, ry + y, rw, 1, row, 0, rw);
+            for (int x = 0; x < rw; x++) {
+                gray[y * rw + x] = LumaRemap.luma(row[x]);
+            }
+        }
+
+        int[] horizontal = new int[rw * rh];
+        for (int y = 0; y < rh; y++) {
+            int offset = y * rw;
+            for (int x = 0; x < rw; x++) {
+                int sum = 0;
+                for (int k = -2; k <= 2; k++) {
+                    int sx = Math.max(0, Math.min(rw - 1, x + k));
+                    sum += GAUSSIAN[k + 2] * gray[offset + sx];
+                }
+                horizontal[offset + x] = sum;
+            }
+        }
+
+        int[] smoothed = new int[rw * rh];
+        for (int y = 0; y < rh; y++) {
+            for (int x = 0; x < rw; x++) {
+                int sum = 0;
+                for (int k = -2; k <= 2; k++) {
+                    int sy = Math.max(0, Math.min(rh - 1, y + k));
+                    sum += GAUSSIAN[k + 2] * horizontal[sy * rw + x];
+                }
+                smoothed[y * rw + x] = (sum + 128) >> 8;
+            }
+        }
+        return smoothed;
+    }
+
+    /**
+     * Compares the pixel with its two neighbours along the gradient, quantised to
+     * 0°, 45°, 90° or 135° with integer slope tests (tan 22.5° ≈ 2/5).
+     * Ties keep the first pixel in scan order so results do not depend on tiling.
+     */
+    private boolean isLocalMaximum(int[] magnitude, int gx, int gy, int x, int y, int rw, int rh,
+                                   int gx0, int gy0, int gx1, int gy1) {
+        int ax = Math.abs(gx);
+        int ay = Math.abs(gy);
+        int dx;
+        int dy;
+        if (5 * ay <= 2 * ax) {
+            dx = 1;
+            dy = 0;
+        } else if (2 * ay >= 5 * ax) {
+            dx = 0;
+            dy = 1;
+        } else if ((gx > 0) == (gy > 0)) {
+            dx = 1;
+            dy = 1;
+        } else {
+            dx = -1;
+            dy = 1;
+        }
+
+        int m = magnitude[y * rw + x];
+        int before = sample(magnitude, x - dx, y - dy, rw, gx0, gy0, gx1, gy1);
+        int after = sample(magnitude, x + dx, y + dy, rw, gx0, gy0, gx1, gy1);
+        return m > before && m >= after;
+    }
+
+    private static int sample(int[] magnitude, int x, int y, int rw, int gx0, int gy0, int gx1, int gy1) {
+        if (x < gx0 || x >= gx1 || y < gy0 || y >= gy1) {
+            // Outside the image
+            return 0;
+        }
+        return magnitude[y * rw + x];
+    }
+
+    /**
+     * 8-connected union-find over the tile's weak and strong pixels.
+     */
+    private TileEdges labelComponents(TileGrid.Tile tile, byte[] classes) {
+        int tw = tile.width();
+        int th = tile.height();
+        int[] parent = new int[tw * th];
+
+        for (int y = 0; y < th; y++) {
+            for (int x = 0; x < tw; x++) {
+                int i = y * tw + x;
+                parent[i] = i;
+                if (classes[i] == 0) {
+                    continue;
+                }
+                // Already-visited neighbours: W, NW, N, NE
+                if (x > 0 && classes[i - 1] != 0) {
+                    union(parent, i, i - 1);
+                }
+                if (y > 0) {
+                    int up = i - tw;
+                    if (x > 0 && classes[up - 1] != 0) {
+                        union(parent, i, up - 1);
+                    }
+                    if (classes[up] != 0) {
+                        union(parent, i, up);
+                    }
+                    if (x < tw - 1 && classes[up + 1] != 0) {
+                        union(parent, i, up + 1);
+                    }
+                }
+            }
+        }
+
+        int[] component = new int[tw * th];
+        int[] rootToComponent = new int[tw * th];
+        Arrays.fill(rootToComponent, -1);
+        List<Boolean> strong = new ArrayList<>();
+
+        for (int i = 0; i < component.length; i++) {
+            if (classes[i] == 0) {
+                component[i] = -1;
+                continue;
+            }
+            int root = find(parent, i);
+            if (rootToComponent[root] < 0) {
+                rootToComponent[root] = strong.size();
+                strong.add(false);
+            }
+            int c = rootToComponent[root];
+            component[i] = c;
+            if (classes[i] == 2) {
+                strong.set(c, true);
+            }
+        }
+
+        boolean[] componentStrong = new boolean[strong.size()];
+        for (int c = 0; c < componentStrong.length; c++) {
+            componentStrong[c] = strong.get(c);
+        }
+        return new TileEdges(tile, component, componentStrong);
+    }
+
+    @Override
+    public Components reduce(List<TileEdges> partials, TileGrid grid) {
+        int[] offsets = new int[partials.size()];
+        int total = 0;
+        for (int t = 0; t < partials.size(); t++) {
+            offsets[t] = total;
+            total += partials.get(t).componentStrong().length;
+        }
+
+        int[] parent = new int[total];
+        for (int i = 0; i < total; i++) {
+            parent[i] = i;
+        }
+
+        // Union components touching across tile borders. Checking the five forward
+        // neighbours (NE, E, SE, S, SW) of each right- or bottom-edge pixel reaches
+        // every cross-border pair from at least one side. Only those edge pixels are
+        // visited: the right column, then the rest of the bottom row.
+        for (int t = 0; t < partials.size(); t++) {
+            TileGrid.Tile tile = partials.get(t).tile();
+            int tw = tile.width();
+            int th = tile.height();
+            for (int ty = 0; ty < th; ty++) {
+                unionAcrossBorder(partials, offsets, grid, parent, t, tw - 1, ty);
+            }
+            for (int tx = 0; tx < tw - 1; tx++) {
+                unionAcrossBorder(partials, offsets, grid, parent, t, tx, th - 1);
+            }
+        }
+
+        boolean[] rootStrong = new boolean[total];
+        for (int t = 0; t < partials.size(); t++) {
+            boolean[] local = partials.get(t).componentStrong();
+            for (int c = 0; c < local.length; c++) {
+                if (local[c]) {
+                    rootStrong[find(parent, offsets[t] + c)] = true;
+                }
+            }
+        }
+
+        List<boolean[]> strong = new ArrayList<>(partials.size());
+        for (int t = 0; t < partials.size(); t++) {
+            boolean[] merged = new boolean[partials.get(t).componentStrong().length];
+            for (int c = 0; c < merged.length; c++) {
+                merged[c] = rootStrong[find(parent, offsets[t] + c)];
+            }
+            strong.add(merged);
+        }
+        return new Components(partials, strong, grid.getColumns(), grid.getTileSize());
+    }
+
+    private static final int[][] FORWARD_NEIGHBOURS = {{1, -1}, {1, 0}, {1, 1}, {0, 1}, {-1, 1}};
+
+    private static void unionAcrossBorder(List<TileEdges> partials, int[] offsets, TileGrid grid,
+                                          int[] parent, int t, int tx, int ty) {
+        TileEdges edges = partials.get(t);
+        TileGrid.Tile tile = edges.tile();
+        int c = edges.component()[ty * tile.width() + tx];
+        if (c < 0) {
+            return;
+        }
+        int id = offsets[t] + c;
+        int x = tile.x() + tx;
+        int y = tile.y() + ty;
+        for (int[] step : FORWARD_NEIGHBOURS) {
+            int other = componentAt(partials, offsets, grid, x + step[0], y + step[1]);
+            if (other >= 0) {
+                union(parent, id, other);
+            }
+        }
+    }
+
+    /**
+     * Global component id of the pixel at (x, y), or -1 if it is outside the image
+     * or not an edge candidate.
+     */
+    private static int componentAt(List<TileEdges> partials, int[] offsets, TileGrid grid, int x, int y) {
+        if (x < 0 || y < 0 || x >= grid.getWidth() || y >= grid.getHeight()) {
+            return -1;
+        }
+        int t = (y / grid.getTileSize()) * grid.getColumns() + x / grid.getTileSize();
+        TileGrid.Tile tile = partials.get(t).tile();
+        int c = partials.get(t).component()[(y - tile.y()) * tile.width() + (x - tile.x())];
+        return c < 0 ? -1 : offsets[t] + c;
+    }
+
+    @Override
+    public void apply(BufferedImage source, BufferedImage target, TileGrid.Tile tile, Components model) {
+        int t = (tile.y() / model.tileSize()) * model.columns() + tile.x() / model.tileSize();
+        int[] component = model.tiles().get(t).component();
+        boolean[] strong = model.strong().get(t);
+
+        int tw = tile.width();
+        int[] row = new int[tw];
+        for (int ty = 0; ty < tile.height(); ty++) {
+            for (int tx = 0; tx < tw; tx++) {
+                int c = component[ty * tw + tx];
+                row[tx] = c >= 0 && strong[c] ? 0xFFFFFFFF : 0xFF000000;
+            }
+            target.setRGB(tile.x(), tile.y() + ty, tw, 1, row, 0, tw);
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            // Smaller index wins so labelling is deterministic
+            if (rootA < rootB) {
+                parent[rootB] = rootA;
+            } else {
+                parent[rootA] = rootB;
+            }
+        }
+    }
+}
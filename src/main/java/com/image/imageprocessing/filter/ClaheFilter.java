@@ -0,0 +1,128 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Contrast-limited adaptive histogram equalisation (CLAHE) on luma.
+ *
+ * Each tile of the processing grid is a contextual region: the gather pass builds
+ * its histogram, clips it at {@code clipLimit} times the average bin height,
+ * redistributes the excess and turns it into a lookup table. The apply pass maps
+ * every pixel through the four nearest tile tables and blends them bilinearly,
+ * which hides the tile boundaries.
+ */
+public class ClaheFilter implements TwoPassFilter<int[], ClaheFilter.TileLuts> {
+
+    private final double clipLimit;
+
+    public ClaheFilter() {
+        this(2.0);
+    }
+
+    /**
+     * @param clipLimit Maximum bin height relative to a flat histogram; 1.0 disables equalisation
+     */
+    public ClaheFilter(double clipLimit) {
+        if (clipLimit < 1.0) {
+            throw new IllegalArgumentException("Clip limit must be at least 1.0: " + clipLimit);
+        }
+        this.clipLimit = clipLimit;
+    }
+
+    /**
+     * Lookup tables for every tile, laid out row-major like the grid.
+     */
+    public record TileLuts(int[][] luts, int columns, int rows, int tileSize) {
+    }
+
+    @Override
+    public int[] gather(BufferedImage source, TileGrid.Tile tile) {
+        int[] histogram = new int[256];
+        int[] row = new int[tile.width()];
+        for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+            source.getRGB(tile.x(), y, tile.width(), 1, row, 0, tile.width());
+            for (int rgb : row) {
+                histogram[LumaRemap.luma(rgb)]++;
+            }
+        }
+        clip(histogram, tile.width() * tile.height());
+        return LumaRemap.equalizationLut(histogram);
+    }
+
+    /**
+     * Caps every bin and spreads the clipped excess evenly over all bins.
+     */
+    private void clip(int[] histogram, int pixelCount) {
+        int limit = Math.max(1, (int) (clipLimit * pixelCount / 256));
+        int excess = 0;
+        for (int i = 0; i < 256; i++) {
+            if (histogram[i] > limit) {
+                excess += histogram[i] - limit;
+                histogram[i] = limit;
+            }
+        }
+
+        int perBin = excess / 256;
+        int remainder = excess % 256;
+        for (int i = 0; i < 256; i++) {
+            histogram[i] += perBin;
+        }
+        // Spread the remainder with a stride so it does not pile up at the dark end
+        int step = remainder == 0 ? 1 : Math.max(1, 256 / remainder);
+        for (int i = 0; i < 256 && remainder > 0; i += step, remainder--) {
+            histogram[i]++;
+        }
+    }
+
+    @Override
+    public TileLuts reduce(List<int[]> partials, TileGrid grid) {
+        return new TileLuts(partials.toArray(new int[0][]), grid.getColumns(), grid.getRows(), grid.getTileSize());
+    }
+
+    @Override
+    public void apply(BufferedImage source, BufferedImage target, TileGrid.Tile tile, TileLuts model) {
+        int tileSize = model.tileSize();
+        int half = tileSize / 2;
+        int[] row = new int[tile.width()];
+
+        for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+            source.getRGB(tile.x(), y, tile.width(), 1, row, 0, tile.width());
+
+            // Neighbouring tile rows whose centres bracket this pixel row
+            double ty = (double) (y - half) / tileSize;
+            int r0 = clampIndex((int) Math.floor(ty), model.rows());
+            int r1 = clampIndex(r0 + 1, model.rows());
+            double fy = clampFraction(ty - r0);
+
+            for (int i = 0; i < row.length; i++) {
+                int x = tile.x() + i;
+                double tx = (double) (x - half) / tileSize;
+                int c0 = clampIndex((int) Math.floor(tx), model.columns());
+                int c1 = clampIndex(c0 + 1, model.columns());
+                double fx = clampFraction(tx - c0);
+
+                int luma = LumaRemap.luma(row[i]);
+                int[][] luts = model.luts();
+                double top = luts[r0 * model.columns() + c0][luma] * (1 - fx)
+                        + luts[r0 * model.columns() + c1][luma] * fx;
+                double bottom = luts[r1 * model.columns() + c0][luma] * (1 - fx)
+                        + luts[r1 * model.columns() + c1][luma] * fx;
+                int mapped = (int) Math.round(top * (1 - fy) + bottom * fy);
+
+                row[i] = LumaRemap.remap(row[i], luma, mapped);
+            }
+            target.setRGB(tile.x(), y, tile.width(), 1, row, 0, tile.width());
+        }
+    }
+
+    private static int clampIndex(int index, int count) {
+        return Math.max(0, Math.min(count - 1, index));
+    }
+
+    private static double clampFraction(double value) {
+        return Math.max(0.0, Math.min(1.0, value));
+    }
+}
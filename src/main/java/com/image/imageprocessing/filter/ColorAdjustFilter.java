@@ -0,0 +1,100 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.color.Lab;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Hue, saturation, vibrance and lightness adjustments in CIE LCh, the polar form of
+ * {@link Lab}. Each pixel is converted, adjusted and converted back in one pass over
+ * the tile, with no intermediate image.
+ *
+ * Working in Lab keeps the adjustments independent: rotating hue or scaling chroma
+ * leaves perceived lightness alone, unlike the same operations in HSV. Hue rotation
+ * is a 2x2 rotation of (a*, b*) whose sine and cosine are computed once per filter,
+ * so no pixel needs trigonometry.
+ */
+public class ColorAdjustFilter implements ImageFilter {
+
+    /** Chroma at and above which vibrance no longer boosts a colour. */
+    private static final float VIBRANCE_CHROMA_LIMIT = 100f;
+
+    private final float hueCos;
+    private final float hueSin;
+    private final float saturation;
+    private final float vibrance;
+    private final float lightness;
+
+    /**
+     * @param hueDegrees Hue rotation, counter-clockwise in the a*b* plane
+     * @param saturation Relative chroma change for every colour, e.g. 0.5 for +50%, -1 for greyscale
+     * @param vibrance Relative chroma change weighted towards muted colours, sparing already vivid ones
+     * @param lightness L* offset, in [-100, 100]
+     */
+    public ColorAdjustFilter(double hueDegrees, double saturation, double vibrance, double lightness) {
+        if (saturation < -1) {
+            throw new IllegalArgumentException("Saturation must be at least -1: " + saturation);
+        }
+        if (vibrance < -1) {
+            throw new IllegalArgumentException("Vibrance must be at least -1: " + vibrance);
+        }
+        if (lightness < -100 || lightness > 100) {
+            throw new IllegalArgumentException("Lightness must be in [-100, 100]: " + lightness);
+        }
+        double radians = Math.toRadians(hueDegrees);
+        this.hueCos = (float) Math.cos(radians);
+        this.hueSin = (float) Math.sin(radians);
+        this.saturation = (float) (1 + saturation);
+        this.vibrance = (float) vibrance;
+        this.lightness = (float) lightness;
+    }
+
+    public static ColorAdjustFilter hue(double degrees) {
+        return new ColorAdjustFilter(degrees, 0, 0, 0);
+    }
+
+    public static ColorAdjustFilter saturation(double amount) {
+        return new ColorAdjustFilter(0, amount, 0, 0);
+    }
+
+    public static ColorAdjustFilter vibrance(double amount) {
+        return new ColorAdjustFilter(0, 0, amount, 0);
+    }
+
+    public static ColorAdjustFilter lightness(double offset) {
+        return new ColorAdjustFilter(0, 0, 0, offset);
+    }
+
+    @Override
+    public BufferedImage filter(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        BufferedImage result = new BufferedImage(width, height,
+                hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+
+        int[] row = new int[width];
+        float[] lab = new float[3];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int argb = row[x];
+                Lab.fromRgb(argb, lab);
+
+                float a = lab[1] * hueCos - lab[2] * hueSin;
+                float b = lab[1] * hueSin + lab[2] * hueCos;
+                float scale = saturation;
+                if (vibrance != 0) {
+                    float chroma = (float) Math.sqrt(a * a + b * b);
+                    scale *= 1 + vibrance * Math.max(0f, 1 - chroma / VIBRANCE_CHROMA_LIMIT);
+                }
+                float l = Math.max(0f, Math.min(100f, lab[0] + lightness));
+
+                int rgb = Lab.toRgb(l, a * scale, b * scale);
+                row[x] = (argb & 0xFF000000) | (rgb & 0x00FFFFFF);
+            }
+            result.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return result;
+    }
+}
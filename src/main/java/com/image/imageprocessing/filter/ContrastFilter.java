@@ -1,5 +1,7 @@
 package com.image.imageprocessing.filter;
 
+import com.image.imageprocessing.stats.ImageStatistics;
+
 import java.awt.*;
 import java.awt.image.BufferedImage;
 
@@ -15,6 +17,13 @@ public class ContrastFilter implements ImageFilter {
         this.factor = factor;
     }
 
+    /**
+     * Creates a contrast filter whose factor is derived from the image's luma spread.
+     */
+    public static ContrastFilter forStatistics(ImageStatistics statistics) {
+        return new ContrastFilter(statistics.suggestContrastFactor());
+    }
+
     @Override
     public BufferedImage filter(BufferedImage originalImage) {
         int width = originalImage.getWidth();
@@ -55,6 +55,11 @@ public class EdgeDetectionFilter implements ImageFilter {
         return edgeImage;
     }
 
+    @Override
+    public int haloRadius() {
+        return 1;
+    }
+
     private BufferedImage convertToGrayscale(BufferedImage image) {
         int width = image.getWidth();
         int height = image.getHeight();
@@ -0,0 +1,72 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.transform.GeometricTransform;
+import com.image.imageprocessing.transform.Interpolation;
+
+import java.util.List;
+
+/**
+ * Creates filters from the display names used by the UI and command-line modes.
+ */
+public final class FilterFactory {
+
+    private static final List<String> FILTER_NAMES = List.of(
+            "Grayscale", "Sepia", "Blur", "Sharpen", "Edge Detection",
+            "Brightness (+50)", "Brightness (-50)", "Contrast (High)", "Contrast (Low)",
+            "Hue (+30°)", "Saturation (+50%)", "Saturation (-50%)", "Vibrance (+50%)", "Lightness (+20)",
+            "Auto Levels", "Equalize", "CLAHE", "Canny Edges", "Median", "Bilateral",
+            "Threshold (Bradley)", "Threshold (Sauvola)", "Resize (50%)", "Rotate (90°)"
+    );
+
+    private FilterFactory() {
+    }
+
+    /**
+     * @return Every supported filter name, in menu order
+     */
+    public static List<String> getFilterNames() {
+        return FILTER_NAMES;
+    }
+
+    /**
+     * Creates the filter for a display name. Unknown names fall back to grayscale.
+     */
+    public static ImageFilter create(String name) {
+        return switch (name) {
+            case "Sepia" -> new SepiaFilter();
+            case "Blur" -> new BlurFilter();
+            case "Sharpen" -> new SharpenFilter();
+            case "Edge Detection" -> new EdgeDetectionFilter();
+            case "Brightness (+50)" -> new BrightnessFilter(50);
+            case "Brightness (-50)" -> new BrightnessFilter(-50);
+            case "Contrast (High)" -> new ContrastFilter(1.5);
+            case "Contrast (Low)" -> new ContrastFilter(0.5);
+            case "Hue (+30°)" -> ColorAdjustFilter.hue(30);
+            case "Saturation (+50%)" -> ColorAdjustFilter.saturation(0.5);
+            case "Saturation (-50%)" -> ColorAdjustFilter.saturation(-0.5);
+            case "Vibrance (+50%)" -> ColorAdjustFilter.vibrance(0.5);
+            case "Lightness (+20)" -> ColorAdjustFilter.lightness(20);
+            case "Auto Levels" -> new AutoLevelsFilter();
+            case "Equalize" -> new HistogramEqualizationFilter();
+            case "CLAHE" -> new ClaheFilter();
+            case "Canny Edges" -> new CannyEdgeFilter();
+            case "Median" -> new MedianFilter();
+            case "Bilateral" -> new BilateralFilter();
+            case "Threshold (Bradley)" -> new AdaptiveThresholdFilter(AdaptiveThresholdFilter.Method.BRADLEY);
+            case "Threshold (Sauvola)" -> new AdaptiveThresholdFilter(AdaptiveThresholdFilter.Method.SAUVOLA);
+            case "Resize (50%)" -> GeometricTransform.scale(0.5, Interpolation.BICUBIC);
+            case "Rotate (90°)" -> GeometricTransform.rotate(90, Interpolation.NEAREST);
+            default -> new GreyScaleFilter();
+        };
+    }
+
+    /**
+     * Like {@link #create} but rejects names that are not in {@link #getFilterNames()}.
+     */
+    public static ImageFilter createStrict(String name) {
+        if (!FILTER_NAMES.contains(name)) {
+            throw new IllegalArgumentException("Unknown filter: " + name + " (expected one of " + FILTER_NAMES + ")");
+        }
+        return create(name);
+    }
+}
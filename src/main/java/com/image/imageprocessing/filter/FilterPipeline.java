@@ -0,0 +1,80 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.raster.PixelLayout;
+import com.image.imageprocessing.raster.PlanarImage;
+import com.image.imageprocessing.transform.GeometricTransform;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Runs several filters back to back as a single filter.
+ * Consecutive planar stages hand their {@link PlanarImage} straight to the next
+ * stage; the image is only converted when the preferred layout changes between
+ * stages, and once more at the end.
+ *
+ * Stages run tile by tile like any other filter, so only tile-local filters can be
+ * chained. {@link TwoPassFilter}s and {@link GeometricTransform}s need the whole
+ * image and are rejected; run them on their own between pipelines.
+ */
+public class FilterPipeline implements ImageFilter {
+
+    private final List<ImageFilter> stages;
+
+    public FilterPipeline(ImageFilter... stages) {
+        this(List.of(stages));
+    }
+
+    public FilterPipeline(List<ImageFilter> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("A pipeline needs at least one filter");
+        }
+        for (ImageFilter stage : stages) {
+            if (stage instanceof TwoPassFilter<?, ?> || stage instanceof GeometricTransform) {
+                throw new IllegalArgumentException(
+                        "Whole-image filters cannot run in a pipeline: " + stage.getClass().getSimpleName());
+            }
+        }
+        this.stages = List.copyOf(stages);
+    }
+
+    @Override
+    public BufferedImage filter(BufferedImage image) {
+        BufferedImage packed = image;
+        PlanarImage planar = null;
+
+        for (ImageFilter stage : stages) {
+            if (stage.preferredLayout() == PixelLayout.PLANAR && stage instanceof PlanarFilter planarStage) {
+                if (planar == null) {
+                    planar = PlanarImage.fromBufferedImage(packed);
+                }
+                planar = planarStage.filter(planar);
+                packed = null;
+            } else {
+                if (packed == null) {
+                    packed = planar.toBufferedImage();
+                }
+                packed = stage.filter(packed);
+                planar = null;
+            }
+        }
+
+        return packed != null ? packed : planar.toBufferedImage();
+    }
+
+    /**
+     * Each stage widens the area the next one depends on, so halos add up.
+     */
+    @Override
+    public int haloRadius() {
+        int radius = 0;
+        for (ImageFilter stage : stages) {
+            radius += stage.haloRadius();
+        }
+        return radius;
+    }
+
+    public List<ImageFilter> getStages() {
+        return stages;
+    }
+}
@@ -0,0 +1,48 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+import com.image.imageprocessing.stats.HistogramAccumulator;
+import com.image.imageprocessing.stats.ImageStatistics;
+import com.image.imageprocessing.stats.StatisticsCollector;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Global histogram equalisation on luma.
+ * The gather pass builds per-tile histograms, the reduce step merges them into
+ * a single lookup table, and the apply pass remaps every pixel's luma while
+ * keeping its colour.
+ */
+public class HistogramEqualizationFilter implements TwoPassFilter<HistogramAccumulator, int[]> {
+
+    @Override
+    public HistogramAccumulator gather(BufferedImage source, TileGrid.Tile tile) {
+        HistogramAccumulator accumulator = new HistogramAccumulator();
+        int[] row = new int[tile.width()];
+        for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+            source.getRGB(tile.x(), y, tile.width(), 1, row, 0, tile.width());
+            accumulator.accumulate(row, 0, tile.width());
+        }
+        return accumulator;
+    }
+
+    @Override
+    public int[] reduce(List<HistogramAccumulator> partials, TileGrid grid) {
+        ImageStatistics statistics = StatisticsCollector.merge(partials);
+        return LumaRemap.equalizationLut(statistics.getHistogram(ImageStatistics.Channel.LUMA));
+    }
+
+    @Override
+    public void apply(BufferedImage source, BufferedImage target, TileGrid.Tile tile, int[] lut) {
+        int[] row = new int[tile.width()];
+        for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+            source.getRGB(tile.x(), y, tile.width(), 1, row, 0, tile.width());
+            for (int i = 0; i < row.length; i++) {
+                int luma = LumaRemap.luma(row[i]);
+                row[i] = LumaRemap.remap(row[i], luma, lut[luma]);
+            }
+            target.setRGB(tile.x(), y, tile.width(), 1, row, 0, tile.width());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.image.imageprocessing.filter;
 
+import com.image.imageprocessing.raster.PixelLayout;
+
 import java.awt.image.BufferedImage;
 
 /**
@@ -9,6 +11,11 @@ import java.awt.image.BufferedImage;
  */
 public interface ImageFilter {
 
+    /**
+     * Tile size used when a filter parallelises itself outside the async processor.
+     */
+    int DEFAULT_TILE_SIZE = 50;
+
     /**
      * Applies the filter to the given image.
      *
@@ -16,4 +23,23 @@ public interface ImageFilter {
      * @return A new BufferedImage with the filter applied
      */
     BufferedImage filter(BufferedImage image);
+
+    /**
+     * Number of pixels around each output pixel the filter reads.
+     * The processor widens every tile by this margin before filtering and crops
+     * the result afterwards, so neighbourhood filters do not produce seams at tile edges.
+     *
+     * @return The neighbourhood radius, 0 for per-pixel filters
+     */
+    default int haloRadius() {
+        return 0;
+    }
+
+    /**
+     * The pixel layout the filter runs fastest on. Filters preferring
+     * {@link PixelLayout#PLANAR} implement {@link PlanarFilter}.
+     */
+    default PixelLayout preferredLayout() {
+        return PixelLayout.PACKED;
+    }
 }
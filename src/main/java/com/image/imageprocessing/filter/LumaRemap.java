@@ -0,0 +1,68 @@
+package com.image.imageprocessing.filter;
+
+/**
+ * Shared helpers for filters that remap the luma of a pixel while keeping its chroma.
+ * Adding the same delta to R, G and B changes Y and leaves Cb/Cr untouched,
+ * because the luma weights sum to one.
+ */
+final class LumaRemap {
+
+    private LumaRemap() {
+    }
+
+    /**
+     * Rec. 709 luma with weights scaled to 256, matching HistogramAccumulator.
+     */
+    static int luma(int rgb) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        return (54 * r + 183 * g + 19 * b) >> 8;
+    }
+
+    /**
+     * Shifts the pixel so its luma moves by {@code newLuma - currentLuma}.
+     */
+    static int remap(int rgb, int currentLuma, int newLuma) {
+        int delta = newLuma - currentLuma;
+        int r = clamp(((rgb >> 16) & 0xFF) + delta);
+        int g = clamp(((rgb >> 8) & 0xFF) + delta);
+        int b = clamp((rgb & 0xFF) + delta);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Builds the classic histogram equalisation lookup table from a 256-bin histogram.
+     * A histogram with a single occupied bin maps to the identity.
+     */
+    static int[] equalizationLut(int[] histogram) {
+        int[] lut = new int[256];
+        long total = 0;
+        long cdfMin = 0;
+        for (int count : histogram) {
+            if (cdfMin == 0 && count != 0) {
+                cdfMin = count;
+            }
+            total += count;
+        }
+
+        if (total == cdfMin) {
+            for (int i = 0; i < 256; i++) {
+                lut[i] = i;
+            }
+            return lut;
+        }
+
+        long cdf = 0;
+        double scale = 255.0 / (total - cdfMin);
+        for (int i = 0; i < 256; i++) {
+            cdf += histogram[i];
+            lut[i] = clamp((int) Math.round(Math.max(0, cdf - cdfMin) * scale));
+        }
+        return lut;
+    }
+
+    static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
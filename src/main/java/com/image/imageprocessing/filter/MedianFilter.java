@@ -0,0 +1,193 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+import com.image.imageprocessing.raster.PlanarImage;
+
+import java.util.Arrays;
+
+/**
+ * Per-channel median over a (2 * radius + 1)² window, with edge pixels repeated
+ * outside the image.
+ *
+ * Uses the Perreault–Hébert sliding histogram. Each tile keeps one histogram per
+ * column of its window span. Moving down a row updates every column histogram with
+ * one removal and one insertion. Moving right subtracts one column histogram from the
+ * kernel histogram and adds another. Histograms are split into 16 coarse and 256 fine
+ * bins, and the fine bins of the kernel are only brought up to date for the coarse bin
+ * that holds the median. So the cost per pixel does not grow with the radius.
+ */
+public class MedianFilter implements PlanarFilter {
+
+    private static final int COARSE_BINS = 16;
+    private static final int FINE_BINS = 256;
+
+    private final int radius;
+
+    public MedianFilter() {
+        this(2);
+    }
+
+    public MedianFilter(int radius) {
+        if (radius < 1) {
+            throw new IllegalArgumentException("Radius must be at least 1: " + radius);
+        }
+        this.radius = radius;
+    }
+
+    @Override
+    public void filterTile(PlanarImage source, PlanarImage target, TileGrid.Tile tile) {
+        PlaneHistograms histograms = new PlaneHistograms(source.getWidth(), source.getHeight(), tile);
+        histograms.filter(source.getRed(), target.getRed());
+        histograms.filter(source.getGreen(), target.getGreen());
+        histograms.filter(source.getBlue(), target.getBlue());
+    }
+
+    /**
+     * Histogram buffers for one tile, reused across its channel planes.
+     */
+    private final class PlaneHistograms {
+
+        private final int width;
+        private final int height;
+        private final TileGrid.Tile tile;
+        private final int columnStart;
+        private final int columnCount;
+
+        private final int[] columnCoarse;
+        private final int[] columnFine;
+        private final int[] kernelCoarse = new int[COARSE_BINS];
+        private final int[] kernelFine = new int[FINE_BINS];
+        // Column at which each fine segment of the kernel was last brought up to date
+        private final int[] segmentValidAt = new int[COARSE_BINS];
+
+        PlaneHistograms(int width, int height, TileGrid.Tile tile) {
+            this.width = width;
+            this.height = height;
+            this.tile = tile;
+            this.columnStart = Math.max(0, tile.x() - radius);
+            int columnEnd = Math.min(width - 1, tile.x() + tile.width() - 1 + radius);
+            this.columnCount = columnEnd - columnStart + 1;
+            this.columnCoarse = new int[columnCount * COARSE_BINS];
+            this.columnFine = new int[columnCount * FINE_BINS];
+        }
+
+        void filter(byte[] src, byte[] dst) {
+            Arrays.fill(columnCoarse, 0);
+            Arrays.fill(columnFine, 0);
+
+            // Column histograms for the window around the tile's first row
+            int y0 = tile.y();
+            for (int k = -radius; k <= radius; k++) {
+                int row = clamp(y0 + k, height) * width;
+                for (int c = 0; c < columnCount; c++) {
+                    add(c, src[row + columnStart + c] & 0xFF);
+                }
+            }
+
+            int median = (2 * radius + 1) * (2 * radius + 1) / 2;
+            for (int y = y0; y < y0 + tile.height(); y++) {
+                if (y > y0) {
+                    int removed = clamp(y - radius - 1, height) * width;
+                    int added = clamp(y + radius, height) * width;
+                    for (int c = 0; c < columnCount; c++) {
+                        remove(c, src[removed + columnStart + c] & 0xFF);
+                        add(c, src[added + columnStart + c] & 0xFF);
+                    }
+                }
+                filterRow(dst, y, median);
+            }
+        }
+
+        private void filterRow(byte[] dst, int y, int median) {
+            int x0 = tile.x();
+            Arrays.fill(kernelCoarse, 0);
+            for (int k = -radius; k <= radius; k++) {
+                int c = column(x0 + k);
+                for (int b = 0; b < COARSE_BINS; b++) {
+                    kernelCoarse[b] += columnCoarse[c * COARSE_BINS + b];
+                }
+            }
+            Arrays.fill(segmentValidAt, Integer.MIN_VALUE);
+
+            for (int x = x0; x < x0 + tile.width(); x++) {
+                if (x > x0) {
+                    int removed = column(x - radius - 1);
+                    int added = column(x + radius);
+                    for (int b = 0; b < COARSE_BINS; b++) {
+                        kernelCoarse[b] += columnCoarse[added * COARSE_BINS + b]
+                                - columnCoarse[removed * COARSE_BINS + b];
+                    }
+                }
+
+                int bin = 0;
+                int below = 0;
+                while (below + kernelCoarse[bin] <= median) {
+                    below += kernelCoarse[bin];
+                    bin++;
+                }
+
+                updateSegment(bin, x);
+                int value = bin * COARSE_BINS;
+                while (below + kernelFine[value] <= median) {
+                    below += kernelFine[value];
+                    value++;
+                }
+                dst[y * width + x] = (byte) value;
+            }
+        }
+
+        /**
+         * Brings the kernel's fine bins for one coarse bin up to column x, either by
+         * replaying the column changes since it was last used or, if that would cost
+         * more, by summing the window's columns afresh.
+         */
+        private void updateSegment(int bin, int x) {
+            int from = bin * COARSE_BINS;
+            int last = segmentValidAt[bin];
+            if (last == x) {
+                return;
+            }
+            if (last == Integer.MIN_VALUE || x - last > 2 * radius + 1) {
+                Arrays.fill(kernelFine, from, from + COARSE_BINS, 0);
+                for (int k = -radius; k <= radius; k++) {
+                    int offset = column(x + k) * FINE_BINS + from;
+                    for (int v = 0; v < COARSE_BINS; v++) {
+                        kernelFine[from + v] += columnFine[offset + v];
+                    }
+                }
+            } else {
+                for (int j = last + 1; j <= x; j++) {
+                    int removed = column(j - radius - 1) * FINE_BINS + from;
+                    int added = column(j + radius) * FINE_BINS + from;
+                    for (int v = 0; v < COARSE_BINS; v++) {
+                        kernelFine[from + v] += columnFine[added + v] - columnFine[removed + v];
+                    }
+                }
+            }
+            segmentValidAt[bin] = x;
+        }
+
+        private int column(int x) {
+            return clamp(x, width) - columnStart;
+        }
+
+        private void add(int column, int value) {
+            columnCoarse[column * COARSE_BINS + (value >> 4)]++;
+            columnFine[column * FINE_BINS + value]++;
+        }
+
+        private void remove(int column, int value) {
+            columnCoarse[column * COARSE_BINS + (value >> 4)]--;
+            columnFine[column * FINE_BINS + value]--;
+        }
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    @Override
+    public int haloRadius() {
+        return radius;
+    }
+}
@@ -0,0 +1,58 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+import com.image.imageprocessing.raster.PixelLayout;
+import com.image.imageprocessing.raster.PlanarImage;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A filter that works on {@link PlanarImage} channel planes.
+ *
+ * Tiles read from the whole source image, so neighbourhood taps outside a tile
+ * simply land in the neighbouring tile's pixels and no halo copy is needed;
+ * only the target region of the tile is written.
+ */
+public interface PlanarFilter extends ImageFilter {
+
+    /**
+     * Writes the filtered pixels of one tile into the target.
+     * Implementations may read any pixel of the source.
+     */
+    void filterTile(PlanarImage source, PlanarImage target, TileGrid.Tile tile);
+
+    /**
+     * Creates the image the filter writes into; opaque and source-sized by default.
+     */
+    default PlanarImage createTarget(PlanarImage source) {
+        return PlanarImage.create(source.getWidth(), source.getHeight(), false);
+    }
+
+    /**
+     * Filters a whole planar image, tile-parallel.
+     */
+    default PlanarImage filter(PlanarImage source) {
+        PlanarImage target = createTarget(source);
+        try {
+            new TileGrid(source.getWidth(), source.getHeight(), DEFAULT_TILE_SIZE)
+                    .forEachTile(tile -> filterTile(source, target, tile));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Planar filter interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Planar filter failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return target;
+    }
+
+    @Override
+    default BufferedImage filter(BufferedImage image) {
+        return filter(PlanarImage.fromBufferedImage(image)).toBufferedImage();
+    }
+
+    @Override
+    default PixelLayout preferredLayout() {
+        return PixelLayout.PLANAR;
+    }
+}
@@ -1,70 +1,47 @@
 package com.image.imageprocessing.filter;
 
-import java.awt.*;
-import java.awt.image.BufferedImage;
+import com.image.imageprocessing.concurrency.TileGrid;
+import com.image.imageprocessing.raster.PlanarImage;
 
-public class SharpenFilter implements ImageFilter {
-
-    private static final double[][] SHARPEN_KERNEL = {
-        {0, -1, 0},
-        {-1, 5, -1},
-        {0, -1, 0}
-    };
+/**
+ * Sharpens with the 3x3 kernel {0,-1,0 / -1,5,-1 / 0,-1,0}.
+ * Pixels on the image border are copied unchanged.
+ */
+public class SharpenFilter implements PlanarFilter {
 
     @Override
-    public BufferedImage filter(BufferedImage originalImage) {
-        int width = originalImage.getWidth();
-        int height = originalImage.getHeight();
-
-        BufferedImage sharpenedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-        for (int y = 1; y < height - 1; y++) {
-            for (int x = 1; x < width - 1; x++) {
-                double sumR = 0, sumG = 0, sumB = 0;
-
-                for (int ky = -1; ky <= 1; ky++) {
-                    for (int kx = -1; kx <= 1; kx++) {
-                        int rgb = originalImage.getRGB(x + kx, y + ky);
-                        int r = (rgb >> 16) & 0xFF;
-                        int g = (rgb >> 8) & 0xFF;
-                        int b = rgb & 0xFF;
+    public void filterTile(PlanarImage source, PlanarImage target, TileGrid.Tile tile) {
+        sharpenPlane(source.getRed(), target.getRed(), source.getWidth(), source.getHeight(), tile);
+        sharpenPlane(source.getGreen(), target.getGreen(), source.getWidth(), source.getHeight(), tile);
+        sharpenPlane(source.getBlue(), target.getBlue(), source.getWidth(), source.getHeight(), tile);
+    }
 
-                        double kernel = SHARPEN_KERNEL[ky + 1][kx + 1];
-                        sumR += r * kernel;
-                        sumG += g * kernel;
-                        sumB += b * kernel;
-                    }
+    private void sharpenPlane(byte[] src, byte[] dst, int width, int height, TileGrid.Tile tile) {
+        for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+            int row = y * width;
+            boolean borderRow = y == 0 || y == height - 1;
+            for (int x = tile.x(); x < tile.x() + tile.width(); x++) {
+                int i = row + x;
+                if (borderRow || x == 0 || x == width - 1) {
+                    dst[i] = src[i];
+                    continue;
                 }
-
-                int newR = clamp((int) sumR);
-                int newG = clamp((int) sumG);
-                int newB = clamp((int) sumB);
-
-                int newRgb = new Color(newR, newG, newB).getRGB();
-                sharpenedImage.setRGB(x, y, newRgb);
+                int sum = 5 * (src[i] & 0xFF)
+                        - (src[i - width] & 0xFF)
+                        - (src[i + width] & 0xFF)
+                        - (src[i - 1] & 0xFF)
+                        - (src[i + 1] & 0xFF);
+                dst[i] = (byte) clamp(sum);
             }
         }
-
-        copyBorders(originalImage, sharpenedImage);
-        return sharpenedImage;
     }
 
     private int clamp(int value) {
         return Math.max(0, Math.min(255, value));
     }
 
-    private void copyBorders(BufferedImage src, BufferedImage dst) {
-        int width = src.getWidth();
-        int height = src.getHeight();
-
-        for (int x = 0; x < width; x++) {
-            dst.setRGB(x, 0, src.getRGB(x, 0));
-            dst.setRGB(x, height - 1, src.getRGB(x, height - 1));
-        }
-
-        for (int y = 0; y < height; y++) {
-            dst.setRGB(0, y, src.getRGB(0, y));
-            dst.setRGB(width - 1, y, src.getRGB(width - 1, y));
-        }
+    @Override
+    public int haloRadius() {
+        return 1;
     }
 }
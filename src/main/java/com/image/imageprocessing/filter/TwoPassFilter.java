@@ -0,0 +1,59 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A filter whose output depends on information gathered from the whole image
+ * (histograms, per-region lookup tables) and therefore cannot be applied to
+ * independent tiles in isolation.
+ *
+ * The async processor runs such filters in two parallel phases over its tile grid:
+ * {@link #gather} once per tile, {@link #reduce} once over all partials, then
+ * {@link #apply} once per tile against the reduced model.
+ *
+ * @param <P> Per-tile partial result of the gather pass
+ * @param <M> Model shared by every tile in the apply pass
+ */
+public interface TwoPassFilter<P, M> extends ImageFilter {
+
+    /**
+     * Reads one tile of the source and returns its partial result.
+     */
+    P gather(BufferedImage source, TileGrid.Tile tile);
+
+    /**
+     * Combines the partials (in the grid's row-major tile order) into the shared model.
+     */
+    M reduce(List<P> partials, TileGrid grid);
+
+    /**
+     * Writes the filtered pixels for one tile into the target image.
+     * Tiles never overlap, so implementations may write the target directly.
+     */
+    void apply(BufferedImage source, BufferedImage target, TileGrid.Tile tile, M model);
+
+    /**
+     * Runs both passes over the whole image in parallel.
+     */
+    @Override
+    default BufferedImage filter(BufferedImage image) {
+        TileGrid grid = new TileGrid(image.getWidth(), image.getHeight(), DEFAULT_TILE_SIZE);
+        BufferedImage target = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        try {
+            grid.reduceThenMap(
+                    tile -> gather(image, tile),
+                    partials -> reduce(partials, grid),
+                    (tile, model) -> apply(image, target, tile, model));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Two-pass filter interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Two-pass filter failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return target;
+    }
+}
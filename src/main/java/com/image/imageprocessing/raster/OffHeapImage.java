@@ -0,0 +1,129 @@
+package com.image.imageprocessing.raster;
+
+import java.awt.image.BufferedImage;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Packed ARGB image stored outside the Java heap in a {@link MemorySegment}.
+ *
+ * Very large images kept here do not count towards heap sizing or old-gen
+ * pressure; only the tile currently being filtered is copied onto the heap.
+ * Each image owns a shared {@link Arena}, so tiles may be read and written from
+ * many threads, and the memory is released deterministically by {@link #close()}.
+ * Use one try-with-resources block per processing job.
+ */
+public final class OffHeapImage implements PixelAccess, AutoCloseable {
+
+    private static final AtomicLong ALLOCATED_BYTES = new AtomicLong();
+
+    private final int width;
+    private final int height;
+    private final boolean hasAlpha;
+    private final Arena arena;
+    private final MemorySegment pixels;
+    private boolean closed;
+
+    private OffHeapImage(int width, int height, boolean hasAlpha) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image dimensions must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.hasAlpha = hasAlpha;
+        this.arena = Arena.ofShared();
+        long byteSize = (long) width * height * Integer.BYTES;
+        this.pixels = arena.allocate(byteSize, Integer.BYTES);
+        ALLOCATED_BYTES.addAndGet(byteSize);
+    }
+
+    /**
+     * Allocates a zero-filled (transparent black) image.
+     */
+    public static OffHeapImage allocate(int width, int height, boolean hasAlpha) {
+        return new OffHeapImage(width, height, hasAlpha);
+    }
+
+    /**
+     * Copies a heap image off-heap, row by row.
+     */
+    public static OffHeapImage fromBufferedImage(BufferedImage image) {
+        int width = image.getWidth();
+        OffHeapImage offHeap = new OffHeapImage(width, image.getHeight(), image.getColorModel().hasAlpha());
+        int[] row = new int[width];
+        for (int y = 0; y < offHeap.height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            offHeap.writeRow(0, y, width, row, 0);
+        }
+        return offHeap;
+    }
+
+    /**
+     * Copies the whole image back onto the heap, e.g. for encoding.
+     */
+    public BufferedImage toBufferedImage() {
+        return readTile(0, 0, width, height);
+    }
+
+    @Override
+    public void readRow(int x, int y, int length, int[] argb, int offset) {
+        MemorySegment.copy(pixels, ValueLayout.JAVA_INT, byteOffset(x, y), argb, offset, length);
+    }
+
+    @Override
+    public void writeRow(int x, int y, int length, int[] argb, int offset) {
+        MemorySegment.copy(argb, offset, pixels, ValueLayout.JAVA_INT, byteOffset(x, y), length);
+    }
+
+    public int getRGB(int x, int y) {
+        return pixels.get(ValueLayout.JAVA_INT, byteOffset(x, y));
+    }
+
+    public void setRGB(int x, int y, int argb) {
+        pixels.set(ValueLayout.JAVA_INT, byteOffset(x, y), argb);
+    }
+
+    private long byteOffset(int x, int y) {
+        return ((long) y * width + x) * Integer.BYTES;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean hasAlpha() {
+        return hasAlpha;
+    }
+
+    public long getByteSize() {
+        return pixels.byteSize();
+    }
+
+    /**
+     * Frees the native memory. Any further access fails with IllegalStateException.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            arena.close();
+            ALLOCATED_BYTES.addAndGet(-pixels.byteSize());
+        }
+    }
+
+    /**
+     * Total native bytes held by all open off-heap images in this JVM.
+     */
+    public static long getAllocatedBytes() {
+        return ALLOCATED_BYTES.get();
+    }
+}
@@ -0,0 +1,53 @@
+package com.image.imageprocessing.raster;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Row-oriented read/write access to pixel storage, independent of where the
+ * pixels live (channel planes, off-heap memory). Rows are exchanged as packed
+ * ARGB ints, the same format as {@code BufferedImage.getRGB}.
+ */
+public interface PixelAccess {
+
+    int getWidth();
+
+    int getHeight();
+
+    boolean hasAlpha();
+
+    /**
+     * Copies {@code length} pixels starting at (x, y) into {@code argb[offset..]}.
+     */
+    void readRow(int x, int y, int length, int[] argb, int offset);
+
+    /**
+     * Copies {@code length} pixels from {@code argb[offset..]} to (x, y) onwards.
+     */
+    void writeRow(int x, int y, int length, int[] argb, int offset);
+
+    /**
+     * Copies a rectangular region into a new heap image, e.g. one tile plus its halo.
+     */
+    default BufferedImage readTile(int x, int y, int width, int height) {
+        BufferedImage tile = new BufferedImage(width, height,
+                hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+        for (int row = 0; row < height; row++) {
+            readRow(x, y + row, width, pixels, row * width);
+        }
+        return tile;
+    }
+
+    /**
+     * Writes every pixel of the tile image to the storage with its top-left at (x, y).
+     */
+    default void writeTile(BufferedImage tile, int x, int y) {
+        int width = tile.getWidth();
+        int[] row = new int[width];
+        for (int r = 0; r < tile.getHeight(); r++) {
+            tile.getRGB(0, r, width, 1, row, 0, width);
+            writeRow(x, y + r, width, row, 0);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.image.imageprocessing.raster;
+
+/**
+ * Pixel memory layout a filter works on most efficiently.
+ */
+public enum PixelLayout {
+
+    /** One packed ARGB int per pixel, as in BufferedImage.TYPE_INT_ARGB. */
+    PACKED,
+
+    /** One unsigned byte plane per channel, see {@link PlanarImage}. */
+    PLANAR
+}
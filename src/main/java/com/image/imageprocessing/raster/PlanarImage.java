@@ -0,0 +1,170 @@
+package com.image.imageprocessing.raster;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Internal structure-of-arrays image: one unsigned byte plane per channel.
+ *
+ * Neighbourhood filters read each channel as a contiguous array instead of
+ * unpacking {@code (rgb >> 16) & 0xFF} for every tap, which keeps inner loops
+ * simple enough for the JIT to unroll and vectorise. Conversion to and from
+ * BufferedImage is meant to happen only at the edges of a pipeline.
+ *
+ * Samples are stored row-major; read them with {@code plane[y * width + x] & 0xFF}.
+ */
+public final class PlanarImage implements PixelAccess {
+
+    private final int width;
+    private final int height;
+    private final byte[] red;
+    private final byte[] green;
+    private final byte[] blue;
+    private final byte[] alpha;
+
+    private PlanarImage(int width, int height, boolean hasAlpha) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image dimensions must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        int size = Math.multiplyExact(width, height);
+        this.red = new byte[size];
+        this.green = new byte[size];
+        this.blue = new byte[size];
+        this.alpha = hasAlpha ? new byte[size] : null;
+    }
+
+    /**
+     * Creates a blank image; without alpha the image is treated as fully opaque.
+     */
+    public static PlanarImage create(int width, int height, boolean hasAlpha) {
+        return new PlanarImage(width, height, hasAlpha);
+    }
+
+    /**
+     * Splits a BufferedImage (including sub-images) into channel planes.
+     */
+    public static PlanarImage fromBufferedImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        PlanarImage planar = new PlanarImage(width, height, hasAlpha);
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                planar.red[offset + x] = (byte) (rgb >> 16);
+                planar.green[offset + x] = (byte) (rgb >> 8);
+                planar.blue[offset + x] = (byte) rgb;
+            }
+            if (hasAlpha) {
+                for (int x = 0; x < width; x++) {
+                    planar.alpha[offset + x] = (byte) (row[x] >>> 24);
+                }
+            }
+        }
+        return planar;
+    }
+
+    /**
+     * Packs the planes back into a new TYPE_INT_RGB (or TYPE_INT_ARGB) image.
+     */
+    public BufferedImage toBufferedImage() {
+        return toBufferedImage(0, 0, width, height);
+    }
+
+    /**
+     * Packs a rectangular region of the planes into a new image of the region's size.
+     */
+    public BufferedImage toBufferedImage(int x, int y, int regionWidth, int regionHeight) {
+        BufferedImage image = new BufferedImage(regionWidth, regionHeight,
+                alpha != null ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        for (int row = 0; row < regionHeight; row++) {
+            int src = (y + row) * width + x;
+            int dst = row * regionWidth;
+            for (int col = 0; col < regionWidth; col++) {
+                int a = alpha != null ? (alpha[src + col] & 0xFF) : 0xFF;
+                pixels[dst + col] = (a << 24)
+                        | ((red[src + col] & 0xFF) << 16)
+                        | ((green[src + col] & 0xFF) << 8)
+                        | (blue[src + col] & 0xFF);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Returns the packed ARGB value of one pixel; convenient but slow in loops.
+     */
+    public int getRGB(int x, int y) {
+        int i = y * width + x;
+        int a = alpha != null ? (alpha[i] & 0xFF) : 0xFF;
+        return (a << 24) | ((red[i] & 0xFF) << 16) | ((green[i] & 0xFF) << 8) | (blue[i] & 0xFF);
+    }
+
+    @Override
+    public void readRow(int x, int y, int length, int[] argb, int offset) {
+        int src = y * width + x;
+        for (int i = 0; i < length; i++) {
+            int a = alpha != null ? (alpha[src + i] & 0xFF) : 0xFF;
+            argb[offset + i] = (a << 24)
+                    | ((red[src + i] & 0xFF) << 16)
+                    | ((green[src + i] & 0xFF) << 8)
+                    | (blue[src + i] & 0xFF);
+        }
+    }
+
+    @Override
+    public void writeRow(int x, int y, int length, int[] argb, int offset) {
+        int dst = y * width + x;
+        for (int i = 0; i < length; i++) {
+            int rgb = argb[offset + i];
+            red[dst + i] = (byte) (rgb >> 16);
+            green[dst + i] = (byte) (rgb >> 8);
+            blue[dst + i] = (byte) rgb;
+            if (alpha != null) {
+                alpha[dst + i] = (byte) (rgb >>> 24);
+            }
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean hasAlpha() {
+        return alpha != null;
+    }
+
+    public byte[] getRed() {
+        return red;
+    }
+
+    public byte[] getGreen() {
+        return green;
+    }
+
+    public byte[] getBlue() {
+        return blue;
+    }
+
+    /**
+     * @return The alpha plane, or null for opaque images
+     */
+    public byte[] getAlpha() {
+        return alpha;
+    }
+}
@@ -0,0 +1,17 @@
+package com.image.imageprocessing.sequence;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * One frame of an animation or image sequence.
+ *
+ * @param index Zero-based position in the sequence
+ * @param image The fully composited frame
+ * @param delayMillis How long the frame is shown before the next one
+ */
+public record AnimationFrame(int index, BufferedImage image, int delayMillis) {
+
+    public AnimationFrame withImage(BufferedImage newImage) {
+        return new AnimationFrame(index, newImage, delayMillis);
+    }
+}
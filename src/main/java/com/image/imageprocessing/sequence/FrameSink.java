@@ -0,0 +1,34 @@
+package com.image.imageprocessing.sequence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Encodes frames in the order they are written.
+ */
+public interface FrameSink extends AutoCloseable {
+
+    void write(AnimationFrame frame) throws IOException;
+
+    /**
+     * Finishes the output. Nothing is visible at the target path before this returns.
+     */
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Discards everything written so far, leaving the target path as it was.
+     * A later {@link #close()} does nothing.
+     */
+    void abort() throws IOException;
+
+    /**
+     * Creates an animated GIF sink for {@code .gif} targets, otherwise a directory of numbered PNGs.
+     */
+    static FrameSink create(Path target) throws IOException {
+        if (target.getFileName().toString().toLowerCase().endsWith(".gif")) {
+            return new GifFrameSink(target, true);
+        }
+        return new ImageSequenceSink(target, "frame");
+    }
+}
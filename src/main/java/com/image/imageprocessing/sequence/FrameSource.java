@@ -0,0 +1,32 @@
+package com.image.imageprocessing.sequence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Decodes frames one at a time, in order, so callers decide how many are held in memory.
+ */
+public interface FrameSource extends AutoCloseable {
+
+    /**
+     * @return The next frame, or null when the sequence is exhausted
+     */
+    AnimationFrame next() throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Opens an animated GIF, or a directory of numbered PNG/JPEG/BMP frames.
+     */
+    static FrameSource open(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            return new ImageSequenceSource(path, ImageSequenceSource.DEFAULT_DELAY_MILLIS);
+        }
+        if (path.getFileName().toString().toLowerCase().endsWith(".gif")) {
+            return new GifFrameSource(path);
+        }
+        throw new IOException("Not a GIF or frame directory: " + path);
+    }
+}
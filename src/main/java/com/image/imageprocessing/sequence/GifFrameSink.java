@@ -0,0 +1,135 @@
+package com.image.imageprocessing.sequence;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes frames as an animated GIF, streaming each frame to disk as it arrives.
+ * The file is built under a temporary name and renamed into place on close.
+ */
+public class GifFrameSink implements FrameSink {
+
+    private static final String IMAGE_METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+
+    private final Path target;
+    private final Path temp;
+    private final boolean loop;
+    private final ImageOutputStream output;
+    private final ImageWriter writer;
+    private final ImageWriteParam param;
+    private boolean first = true;
+    private boolean closed;
+
+    public GifFrameSink(Path target, boolean loop) throws IOException {
+        this.target = target;
+        this.loop = loop;
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        this.temp = Files.createFile(directory.resolve("." + target.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp"));
+
+        var writers = ImageIO.getImageWritersByFormatName("gif");
+        if (!writers.hasNext()) {
+            Files.deleteIfExists(temp);
+            throw new IOException("No GIF writer available");
+        }
+        this.writer = writers.next();
+        this.param = writer.getDefaultWriteParam();
+        this.output = ImageIO.createImageOutputStream(temp.toFile());
+        writer.setOutput(output);
+        writer.prepareWriteSequence(null);
+    }
+
+    @Override
+    public void write(AnimationFrame frame) throws IOException {
+        ImageTypeSpecifier type = ImageTypeSpecifier.createFromRenderedImage(frame.image());
+        IIOMetadata metadata = writer.getDefaultImageMetadata(type, param);
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(IMAGE_METADATA_FORMAT);
+
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("delayTime", Integer.toString(Math.max(0, frame.delayMillis() / 10)));
+
+        if (first && loop) {
+            IIOMetadataNode extensions = child(root, "ApplicationExtensions");
+            IIOMetadataNode netscape = new IIOMetadataNode("ApplicationExtension");
+            netscape.setAttribute("applicationID", "NETSCAPE");
+            netscape.setAttribute("authenticationCode", "2.0");
+            // Sub-block 1, loop count 0 = forever
+            netscape.setUserObject(new byte[] {1, 0, 0});
+            extensions.appendChild(netscape);
+        }
+        metadata.setFromTree(IMAGE_METADATA_FORMAT, root);
+
+        writer.writeToSequence(new IIOImage(frame.image(), null, metadata), param);
+        first = false;
+    }
+
+    private static IIOMetadataNode child(IIOMetadataNode root, String name) {
+        for (int i = 0; i < root.getLength(); i++) {
+            if (root.item(i).getNodeName().equals(name)) {
+                return (IIOMetadataNode) root.item(i);
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        root.appendChild(node);
+        return node;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!first) {
+                writer.endWriteSequence();
+            }
+            output.close();
+            writer.dispose();
+            if (first) {
+                throw new IOException("No frames written to " + target);
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void abort() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            output.close();
+            writer.dispose();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.image.imageprocessing.sequence;
+
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Decodes every frame of an animated GIF.
+ *
+ * GIF frames are often partial rectangles drawn over the previous frame, so each
+ * frame is composited onto a logical-screen canvas honouring its offset and disposal
+ * method, and the caller receives a full-size copy. Only the canvas and one saved
+ * copy (for "restore to previous") are kept between calls.
+ */
+public class GifFrameSource implements FrameSource {
+
+    private static final String IMAGE_METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+    private static final String STREAM_METADATA_FORMAT = "javax_imageio_gif_stream_1.0";
+
+    private final ImageInputStream input;
+    private final ImageReader reader;
+    private BufferedImage canvas;
+    private int nextIndex;
+    private boolean exhausted;
+
+    public GifFrameSource(Path file) throws IOException {
+        input = ImageIO.createImageInputStream(file.toFile());
+        if (input == null) {
+            throw new IOException("Cannot open " + file);
+        }
+        var readers = ImageIO.getImageReadersByFormatName("gif");
+        if (!readers.hasNext()) {
+            input.close();
+            throw new IOException("No GIF reader available");
+        }
+        reader = readers.next();
+        reader.setInput(input, false);
+    }
+
+    @Override
+    public AnimationFrame next() throws IOException {
+        if (exhausted) {
+            return null;
+        }
+
+        BufferedImage raw;
+        try {
+            raw = reader.read(nextIndex);
+        } catch (IndexOutOfBoundsException e) {
+            exhausted = true;
+            return null;
+        }
+
+        Node imageTree = reader.getImageMetadata(nextIndex).getAsTree(IMAGE_METADATA_FORMAT);
+        Node descriptor = child(imageTree, "ImageDescriptor");
+        Node control = child(imageTree, "GraphicControlExtension");
+        int left = intAttribute(descriptor, "imageLeftPosition", 0);
+        int top = intAttribute(descriptor, "imageTopPosition", 0);
+        int delayMillis = intAttribute(control, "delayTime", 10) * 10;
+        String disposal = control != null ? attribute(control, "disposalMethod") : "none";
+
+        if (canvas == null) {
+            canvas = createCanvas(raw, left, top);
+        }
+
+        BufferedImage previous = "restoreToPrevious".equals(disposal) ? copy(canvas) : null;
+
+        Graphics2D graphics = canvas.createGraphics();
+        graphics.drawImage(raw, left, top, null);
+        graphics.dispose();
+
+        AnimationFrame frame = new AnimationFrame(nextIndex, copy(canvas), delayMillis);
+
+        if ("restoreToBackgroundColor".equals(disposal)) {
+            Graphics2D clear = canvas.createGraphics();
+            clear.setComposite(AlphaComposite.Clear);
+            clear.fillRect(left, top, raw.getWidth(), raw.getHeight());
+            clear.dispose();
+        } else if (previous != null) {
+            canvas = previous;
+        }
+
+        nextIndex++;
+        return frame;
+    }
+
+    private BufferedImage createCanvas(BufferedImage firstFrame, int left, int top) throws IOException {
+        int width = left + firstFrame.getWidth();
+        int height = top + firstFrame.getHeight();
+        IIOMetadata streamMetadata = reader.getStreamMetadata();
+        if (streamMetadata != null) {
+            Node screen = child(streamMetadata.getAsTree(STREAM_METADATA_FORMAT), "LogicalScreenDescriptor");
+            width = Math.max(width, intAttribute(screen, "logicalScreenWidth", width));
+            height = Math.max(height, intAttribute(screen, "logicalScreenHeight", height));
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        image.copyData(copy.getRaster());
+        return copy;
+    }
+
+    private static Node child(Node parent, String name) {
+        if (parent == null) {
+            return null;
+        }
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (name.equals(node.getNodeName())) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static String attribute(Node node, String name) {
+        Node attribute = node.getAttributes().getNamedItem(name);
+        return attribute != null ? attribute.getNodeValue() : null;
+    }
+
+    private static int intAttribute(Node node, String name, int fallback) {
+        if (node == null) {
+            return fallback;
+        }
+        String value = attribute(node, name);
+        return value != null ? Integer.parseInt(value) : fallback;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.dispose();
+        input.close();
+    }
+}
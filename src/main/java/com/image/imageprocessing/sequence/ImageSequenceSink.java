@@ -0,0 +1,85 @@
+package com.image.imageprocessing.sequence;
+
+import com.image.imageprocessing.utils.ImageIOUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Writes frames as numbered PNG files ({@code prefix_00000.png}) into a directory.
+ * Frames go to a hidden staging directory next to the target, which is renamed into
+ * place on close, so readers see either the previous sequence or the complete new one.
+ */
+public class ImageSequenceSink implements FrameSink {
+
+    private final Path directory;
+    private final Path staging;
+    private final String prefix;
+    private boolean empty = true;
+
+    public ImageSequenceSink(Path directory, String prefix) throws IOException {
+        this.directory = directory.toAbsolutePath();
+        this.prefix = prefix;
+        this.staging = siblingOf(this.directory, "tmp");
+        Files.createDirectories(this.directory.getParent());
+        Files.createDirectory(staging);
+    }
+
+    @Override
+    public void write(AnimationFrame frame) throws IOException {
+        String fileName = String.format("%s_%05d.png", prefix, frame.index());
+        ImageIOUtil.saveImageAtomically(frame.image(), staging.resolve(fileName));
+        empty = false;
+    }
+
+    /**
+     * Renames the staging directory over the target. A previous sequence at the target
+     * is moved aside first and deleted afterwards, since a non-empty directory cannot
+     * be replaced in one rename.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!Files.exists(staging)) {
+            return;
+        }
+        if (empty) {
+            abort();
+            throw new IOException("No frames written to " + directory);
+        }
+        Path previous = null;
+        if (Files.exists(directory)) {
+            previous = siblingOf(directory, "old");
+            Files.move(directory, previous, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(staging, directory, StandardCopyOption.ATOMIC_MOVE);
+        if (previous != null) {
+            deleteRecursively(previous);
+        }
+    }
+
+    @Override
+    public void abort() throws IOException {
+        deleteRecursively(staging);
+    }
+
+    private static Path siblingOf(Path directory, String suffix) {
+        return directory.resolveSibling("." + directory.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + "." + suffix);
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.image.imageprocessing.sequence;
+
+import com.image.imageprocessing.utils.ImageIOUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Reads a directory of numbered still images (e.g. {@code frame_0001.png}) as a sequence.
+ * Files are ordered by the last number in their name, so {@code f2} comes before {@code f10}.
+ */
+public class ImageSequenceSource implements FrameSource {
+
+    public static final int DEFAULT_DELAY_MILLIS = 100;
+
+    private static final Pattern LAST_NUMBER = Pattern.compile("(\\d+)(?!.*\\d)");
+
+    private final List<Path> files;
+    private final int delayMillis;
+    private int nextIndex;
+
+    public ImageSequenceSource(Path directory, int delayMillis) throws IOException {
+        this.delayMillis = delayMillis;
+        try (Stream<Path> entries = Files.list(directory)) {
+            this.files = entries
+                    .filter(Files::isRegularFile)
+                    .filter(path -> ImageIOUtil.isSupportedImageFormat(path.toFile()))
+                    .sorted(Comparator.comparingLong(ImageSequenceSource::frameNumber)
+                            .thenComparing(path -> path.getFileName().toString()))
+                    .toList();
+        }
+        if (files.isEmpty()) {
+            throw new IOException("No image frames found in " + directory);
+        }
+    }
+
+    private static long frameNumber(Path path) {
+        Matcher matcher = LAST_NUMBER.matcher(path.getFileName().toString());
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : Long.MAX_VALUE;
+    }
+
+    @Override
+    public AnimationFrame next() throws IOException {
+        if (nextIndex >= files.size()) {
+            return null;
+        }
+        Path file = files.get(nextIndex);
+        var image = ImageIOUtil.readImage(file.toString());
+        if (image == null) {
+            throw new IOException("Unreadable frame: " + file);
+        }
+        return new AnimationFrame(nextIndex++, image, delayMillis);
+    }
+
+    public int getFrameCount() {
+        return files.size();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,157 @@
+package com.image.imageprocessing.sequence;
+
+import com.image.imageprocessing.concurrency.AsyncImageProcessor;
+import com.image.imageprocessing.concurrency.TuningProfile;
+import com.image.imageprocessing.filter.FilterFactory;
+import com.image.imageprocessing.filter.ImageFilter;
+import com.image.imageprocessing.utils.PerformanceMetrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Filters animations and image sequences with frame-level and tile-level parallelism.
+ *
+ * Up to {@code windowSize} frames are decoded and being filtered at any time; the
+ * oldest one is encoded as soon as it is done while later frames keep processing,
+ * so output order is preserved and memory is bounded by the window rather than the
+ * sequence length. All frames share one processor whose tiles draw from a single
+ * CPU budget, so more frames in flight never means more busy threads than cores.
+ */
+public class SequenceProcessor {
+
+    private final int windowSize;
+    private final AsyncImageProcessor processor;
+
+    public SequenceProcessor(int tileSize, int windowSize) {
+        this(tileSize, windowSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SequenceProcessor(int tileSize, int windowSize, int cpuBudget) {
+        this(tileSize, windowSize, cpuBudget, null);
+    }
+
+    /**
+     * @param tuningProfile Tuned tile sizes, or null to always use {@code tileSize}
+     */
+    public SequenceProcessor(int tileSize, int windowSize, int cpuBudget, TuningProfile tuningProfile) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        if (cpuBudget <= 0) {
+            throw new IllegalArgumentException("CPU budget must be positive: " + cpuBudget);
+        }
+        this.windowSize = windowSize;
+        this.processor = new AsyncImageProcessor(tileSize, new Semaphore(cpuBudget), tuningProfile);
+    }
+
+    /**
+     * Reads every frame from the source, filters it and writes it to the sink in order.
+     *
+     * @return The number of frames written
+     */
+    public int process(FrameSource source, FrameSink sink, ImageFilter filter, PerformanceMetrics metrics)
+            throws IOException, InterruptedException, ExecutionException {
+
+        long startTime = System.currentTimeMillis();
+        Deque<Future<FrameResult>> window = new ArrayDeque<>(windowSize);
+        int totalTiles = 0;
+        int written = 0;
+        boolean sourceDone = false;
+
+        try (ExecutorService frameExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                while (true) {
+                    // Top the window up before blocking on the oldest frame
+                    while (!sourceDone && window.size() < windowSize) {
+                        AnimationFrame frame = source.next();
+                        if (frame == null) {
+                            sourceDone = true;
+                        } else {
+                            window.addLast(frameExecutor.submit(() -> filterFrame(frame, filter)));
+                        }
+                    }
+                    if (window.isEmpty()) {
+                        break;
+                    }
+
+                    FrameResult result = window.removeFirst().get();
+                    sink.write(result.frame());
+                    totalTiles += result.metrics().getTotalTiles();
+                    metrics.addProcessedTiles(result.metrics().getProcessedTiles());
+                    written++;
+                }
+            } finally {
+                for (Future<FrameResult> pending : window) {
+                    pending.cancel(true);
+                }
+            }
+        }
+
+        metrics.setTotalTiles(totalTiles);
+        metrics.setProcessingTime(System.currentTimeMillis() - startTime);
+        return written;
+    }
+
+    private FrameResult filterFrame(AnimationFrame frame, ImageFilter filter) throws InterruptedException, ExecutionException {
+        PerformanceMetrics frameMetrics = new PerformanceMetrics();
+        var filtered = processor.processWithStructuredConcurrency(frame.image(), filter, frameMetrics, null);
+        return new FrameResult(frame.withImage(filtered), frameMetrics);
+    }
+
+    private record FrameResult(AnimationFrame frame, PerformanceMetrics metrics) {
+    }
+
+    /**
+     * Command-line entry point. INPUT is an animated GIF or a directory of numbered frames;
+     * OUTPUT is a {@code .gif} file or a directory for numbered PNGs.
+     * Usage: {@code SequenceProcessor [--filter NAME] [--tile-size N] [--window N] INPUT OUTPUT}
+     */
+    public static void main(String[] args) throws Exception {
+        String filterName = "Grayscale";
+        int tileSize = ImageFilter.DEFAULT_TILE_SIZE;
+        int windowSize = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        List<Path> paths = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter" -> filterName = args[++i];
+                case "--tile-size" -> tileSize = Integer.parseInt(args[++i]);
+                case "--window" -> windowSize = Integer.parseInt(args[++i]);
+                default -> paths.add(Paths.get(args[i]));
+            }
+        }
+        if (paths.size() != 2) {
+            System.err.println("Usage: SequenceProcessor [--filter NAME] [--tile-size N] [--window N] INPUT OUTPUT");
+            System.exit(2);
+        }
+
+        ImageFilter filter = FilterFactory.createStrict(filterName);
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        metrics.setFilterName(filterName);
+        int frames;
+        try (FrameSource source = FrameSource.open(paths.get(0))) {
+            FrameSink sink = FrameSink.create(paths.get(1));
+            try {
+                frames = new SequenceProcessor(tileSize, windowSize, Runtime.getRuntime().availableProcessors(),
+                        TuningProfile.loadDefault()).process(source, sink, filter, metrics);
+            } catch (Exception e) {
+                // Leave whatever was at the output path untouched
+                sink.abort();
+                throw e;
+            }
+            sink.close();
+        }
+        System.out.println("Wrote " + frames + " frames to " + paths.get(1) + " | " + metrics.toShortString());
+    }
+}
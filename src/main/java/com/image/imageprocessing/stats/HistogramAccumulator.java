@@ -0,0 +1,80 @@
+package com.image.imageprocessing.stats;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Mutable per-worker histogram counts for the red, green, blue and luma channels.
+ * A worker owns an accumulator while it counts, usually one borrowed from a
+ * {@link HistogramAccumulatorPool}, so no counts are shared while pixels are being
+ * read; accumulators are combined with {@link #merge} once all tiles finish.
+ * Not thread-safe by design.
+ */
+public class HistogramAccumulator {
+
+    public static final int BINS = 256;
+
+    final int[] red = new int[BINS];
+    final int[] green = new int[BINS];
+    final int[] blue = new int[BINS];
+    final int[] luma = new int[BINS];
+    long pixelCount;
+
+    /**
+     * Adds every pixel of the image (or tile) to the counts.
+     */
+    public void accumulate(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            accumulate(row, 0, width);
+        }
+    }
+
+    /**
+     * Adds a run of packed ARGB pixels to the counts.
+     */
+    public void accumulate(int[] argb, int offset, int length) {
+        int[] r = red;
+        int[] g = green;
+        int[] b = blue;
+        int[] l = luma;
+        for (int i = offset; i < offset + length; i++) {
+            int rgb = argb[i];
+            int cr = (rgb >> 16) & 0xFF;
+            int cg = (rgb >> 8) & 0xFF;
+            int cb = rgb & 0xFF;
+            r[cr]++;
+            g[cg]++;
+            b[cb]++;
+            // Rec. 709 weights scaled to 256, same luminosity as GreyScaleFilter
+            l[(54 * cr + 183 * cg + 19 * cb) >> 8]++;
+        }
+        pixelCount += length;
+    }
+
+    /**
+     * Folds another accumulator's counts into this one.
+     */
+    public void merge(HistogramAccumulator other) {
+        for (int i = 0; i < BINS; i++) {
+            red[i] += other.red[i];
+            green[i] += other.green[i];
+            blue[i] += other.blue[i];
+            luma[i] += other.luma[i];
+        }
+        pixelCount += other.pixelCount;
+    }
+
+    public long getPixelCount() {
+        return pixelCount;
+    }
+
+    /**
+     * Takes an immutable snapshot of the current counts.
+     */
+    public ImageStatistics toStatistics() {
+        return new ImageStatistics(red.clone(), green.clone(), blue.clone(), luma.clone(), pixelCount);
+    }
+}
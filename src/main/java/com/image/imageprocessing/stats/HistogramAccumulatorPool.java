@@ -0,0 +1,68 @@
+package com.image.imageprocessing.stats;
+
+import java.awt.image.BufferedImage;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Accumulators shared by the tile tasks of one image, one per worker rather than one
+ * per tile. A tile borrows an idle accumulator, counts its pixels and hands it back,
+ * so only as many exist as tiles are ever counted at once, which the CPU budget or
+ * the carrier threads bound, however many tiles the image has.
+ */
+public class HistogramAccumulatorPool {
+
+    private final Queue<HistogramAccumulator> idle = new ConcurrentLinkedQueue<>();
+    private final Queue<HistogramAccumulator> created = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Adds every pixel of the tile to one of the pool's accumulators. Thread-safe.
+     */
+    public void accumulate(BufferedImage tile) {
+        HistogramAccumulator accumulator = borrow();
+        try {
+            accumulator.accumulate(tile);
+        } finally {
+            idle.offer(accumulator);
+        }
+    }
+
+    /**
+     * Adds a run of packed ARGB pixels to one of the pool's accumulators. Thread-safe.
+     */
+    public void accumulate(int[] argb, int offset, int length) {
+        HistogramAccumulator accumulator = borrow();
+        try {
+            accumulator.accumulate(argb, offset, length);
+        } finally {
+            idle.offer(accumulator);
+        }
+    }
+
+    /**
+     * Number of accumulators created so far.
+     */
+    public int size() {
+        return created.size();
+    }
+
+    /**
+     * Merges every accumulator. Call once all tiles have finished.
+     */
+    public ImageStatistics toStatistics() {
+        HistogramAccumulator total = new HistogramAccumulator();
+        for (HistogramAccumulator accumulator : created) {
+            total.merge(accumulator);
+        }
+        return total.toStatistics();
+    }
+
+    private HistogramAccumulator borrow() {
+        HistogramAccumulator accumulator = idle.poll();
+        if (accumulator == null) {
+            accumulator = new HistogramAccumulator();
+            created.add(accumulator);
+        }
+        return accumulator;
+    }
+}
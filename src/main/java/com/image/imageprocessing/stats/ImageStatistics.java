@@ -0,0 +1,125 @@
+package com.image.imageprocessing.stats;
+
+/**
+ * Immutable per-channel histograms of an image with derived min/max/mean and
+ * percentile queries. Produced by {@link StatisticsCollector} or as a by-product
+ * of a filter pass in the async processor.
+ */
+public class ImageStatistics {
+
+    public enum Channel {
+        RED, GREEN, BLUE, LUMA
+    }
+
+    private final int[] red;
+    private final int[] green;
+    private final int[] blue;
+    private final int[] luma;
+    private final long pixelCount;
+
+    ImageStatistics(int[] red, int[] green, int[] blue, int[] luma, long pixelCount) {
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.luma = luma;
+        this.pixelCount = pixelCount;
+    }
+
+    /**
+     * Returns a copy of the 256-bin histogram for the channel.
+     */
+    public int[] getHistogram(Channel channel) {
+        return bins(channel).clone();
+    }
+
+    public long getPixelCount() {
+        return pixelCount;
+    }
+
+    public int getMin(Channel channel) {
+        int[] bins = bins(channel);
+        for (int i = 0; i < bins.length; i++) {
+            if (bins[i] != 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    public int getMax(Channel channel) {
+        int[] bins = bins(channel);
+        for (int i = bins.length - 1; i >= 0; i--) {
+            if (bins[i] != 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    public double getMean(Channel channel) {
+        if (pixelCount == 0) {
+            return 0;
+        }
+        int[] bins = bins(channel);
+        long sum = 0;
+        for (int i = 0; i < bins.length; i++) {
+            sum += (long) i * bins[i];
+        }
+        return (double) sum / pixelCount;
+    }
+
+    /**
+     * Returns the smallest value at or below which the given fraction of pixels fall
+     * (nearest-rank method).
+     *
+     * @param channel The channel to query
+     * @param fraction Fraction between 0.0 and 1.0, e.g. 0.99 for the 99th percentile
+     */
+    public int getPercentile(Channel channel, double fraction) {
+        if (fraction < 0.0 || fraction > 1.0) {
+            throw new IllegalArgumentException("Percentile fraction must be between 0 and 1: " + fraction);
+        }
+        if (pixelCount == 0) {
+            return 0;
+        }
+        int[] bins = bins(channel);
+        long rank = Math.max(1, (long) Math.ceil(fraction * pixelCount));
+        long cumulative = 0;
+        for (int i = 0; i < bins.length; i++) {
+            cumulative += bins[i];
+            if (cumulative >= rank) {
+                return i;
+            }
+        }
+        return bins.length - 1;
+    }
+
+    /**
+     * Suggests a {@code ContrastFilter} factor that stretches the 1st..99th luma
+     * percentiles to the full 0..255 range around the filter's midpoint of 128.
+     * The result is limited to 0.25..4.0 so flat images do not explode.
+     */
+    public double suggestContrastFactor() {
+        int low = getPercentile(Channel.LUMA, 0.01);
+        int high = getPercentile(Channel.LUMA, 0.99);
+        int spread = Math.max(1, Math.max(128 - low, high - 128));
+        double factor = 127.0 / spread;
+        return Math.max(0.25, Math.min(4.0, factor));
+    }
+
+    private int[] bins(Channel channel) {
+        return switch (channel) {
+            case RED -> red;
+            case GREEN -> green;
+            case BLUE -> blue;
+            case LUMA -> luma;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Luma min/mean/max: %d/%.1f/%d | p1/p99: %d/%d | %d px",
+                getMin(Channel.LUMA), getMean(Channel.LUMA), getMax(Channel.LUMA),
+                getPercentile(Channel.LUMA, 0.01), getPercentile(Channel.LUMA, 0.99), pixelCount);
+    }
+}
@@ -0,0 +1,43 @@
+package com.image.imageprocessing.stats;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Computes image statistics with a parallel reduction over tiles.
+ * Tiles count into a {@link HistogramAccumulatorPool}, one accumulator per worker;
+ * the partial results are merged once at the end, so workers never contend on
+ * shared counters.
+ */
+public class StatisticsCollector {
+
+    private final int tileSize;
+
+    public StatisticsCollector(int tileSize) {
+        this.tileSize = tileSize;
+    }
+
+    public ImageStatistics compute(BufferedImage image) throws InterruptedException, ExecutionException {
+        TileGrid grid = new TileGrid(image.getWidth(), image.getHeight(), tileSize);
+
+        HistogramAccumulatorPool pool = new HistogramAccumulatorPool();
+        grid.forEachTile(tile -> pool.accumulate(
+                image.getSubimage(tile.x(), tile.y(), tile.width(), tile.height())));
+        return pool.toStatistics();
+    }
+
+    /**
+     * Merges accumulators into the final statistics, e.g. the per-tile partials of a
+     * two-pass filter.
+     */
+    public static ImageStatistics merge(List<HistogramAccumulator> partials) {
+        HistogramAccumulator total = new HistogramAccumulator();
+        for (HistogramAccumulator partial : partials) {
+            total.merge(partial);
+        }
+        return total.toStatistics();
+    }
+}
@@ -0,0 +1,182 @@
+package com.image.imageprocessing.stats;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Integral image of one 8-bit channel: the sum (and optionally the sum of squares)
+ * of every rectangle in O(1), whatever its size.
+ *
+ * The table is built in parallel row bands. Each band first computes prefix sums as if
+ * it were the top of the image. A short sequential carry pass then works out the
+ * running column totals at each band boundary, and a second parallel pass adds each
+ * band's carry to its rows. Storage is a flat {@code long[]} of (width + 1) x
+ * (height + 1) entries, with a zero first row and column so queries need no edge cases.
+ */
+public final class SummedAreaTable {
+
+    public static final int DEFAULT_BAND_HEIGHT = 64;
+
+    /**
+     * Supplies the values of one row; only the first {@code width} entries are read.
+     */
+    @FunctionalInterface
+    public interface RowReader {
+        void read(int y, int[] row);
+    }
+
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final long[] sums;
+    private final long[] squares;
+
+    private SummedAreaTable(int width, int height, long[] sums, long[] squares) {
+        this.width = width;
+        this.height = height;
+        this.stride = width + 1;
+        this.sums = sums;
+        this.squares = squares;
+    }
+
+    /**
+     * Builds the table for an unsigned byte plane such as {@code PlanarImage.getRed()}.
+     */
+    public static SummedAreaTable ofPlane(byte[] plane, int width, int height, boolean withSquares)
+            throws InterruptedException, ExecutionException {
+        return build(width, height, (y, row) -> {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                row[x] = plane[offset + x] & 0xFF;
+            }
+        }, withSquares);
+    }
+
+    /**
+     * Builds the table from rows of non-negative values.
+     *
+     * @param withSquares Also tabulate squared values, needed for {@link #variance}
+     */
+    public static SummedAreaTable build(int width, int height, RowReader rows, boolean withSquares)
+            throws InterruptedException, ExecutionException {
+
+        int stride = width + 1;
+        long[] sums = new long[stride * (height + 1)];
+        long[] squares = withSquares ? new long[stride * (height + 1)] : null;
+
+        // A one-column grid: every tile is a full-width band of rows
+        TileGrid bands = new TileGrid(1, height, DEFAULT_BAND_HEIGHT);
+
+        bands.reduceThenMap(
+                band -> {
+                    int[] row = new int[width];
+                    for (int y = band.y(); y < band.y() + band.height(); y++) {
+                        rows.read(y, row);
+                        int out = (y + 1) * stride + 1;
+                        int above = y > band.y() ? out - stride : -1;
+                        long rowSum = 0;
+                        long rowSquares = 0;
+                        for (int x = 0; x < width; x++) {
+                            long value = row[x];
+                            rowSum += value;
+                            sums[out + x] = rowSum + (above >= 0 ? sums[above + x] : 0);
+                            if (squares != null) {
+                                rowSquares += value * value;
+                                squares[out + x] = rowSquares + (above >= 0 ? squares[above + x] : 0);
+                            }
+                        }
+                    }
+                    return band;
+                },
+                bandList -> carries(bandList, width, stride, sums, squares),
+                (band, carries) -> {
+                    int index = band.y() / DEFAULT_BAND_HEIGHT;
+                    if (index == 0) {
+                        return;
+                    }
+                    long[] sumCarry = carries.get(index)[0];
+                    long[] squareCarry = carries.get(index)[1];
+                    for (int y = band.y(); y < band.y() + band.height(); y++) {
+                        int out = (y + 1) * stride + 1;
+                        for (int x = 0; x < width; x++) {
+                            sums[out + x] += sumCarry[x];
+                            if (squares != null) {
+                                squares[out + x] += squareCarry[x];
+                            }
+                        }
+                    }
+                });
+
+        return new SummedAreaTable(width, height, sums, squares);
+    }
+
+    /**
+     * For every band, the global column totals of all rows above it. Only each band's
+     * last row is read, so this is O(width x bands).
+     */
+    private static List<long[][]> carries(List<TileGrid.Tile> bands, int width, int stride,
+                                          long[] sums, long[] squares) {
+        List<long[][]> carries = new ArrayList<>(bands.size());
+        long[] sumCarry = new long[width];
+        long[] squareCarry = squares != null ? new long[width] : null;
+        for (TileGrid.Tile band : bands) {
+            carries.add(new long[][]{sumCarry.clone(), squareCarry != null ? squareCarry.clone() : null});
+            int last = (band.y() + band.height()) * stride + 1;
+            for (int x = 0; x < width; x++) {
+                sumCarry[x] += sums[last + x];
+                if (squareCarry != null) {
+                    squareCarry[x] += squares[last + x];
+                }
+            }
+        }
+        return carries;
+    }
+
+    /**
+     * Sum of the rectangle [x0, x1) x [y0, y1), which must lie inside the image.
+     */
+    public long sum(int x0, int y0, int x1, int y1) {
+        return rectangle(sums, x0, y0, x1, y1);
+    }
+
+    /**
+     * Sum of squared values over [x0, x1) x [y0, y1).
+     *
+     * @throws IllegalStateException If the table was built without squares
+     */
+    public long sumOfSquares(int x0, int y0, int x1, int y1) {
+        if (squares == null) {
+            throw new IllegalStateException("Table was built without squared sums");
+        }
+        return rectangle(squares, x0, y0, x1, y1);
+    }
+
+    public double mean(int x0, int y0, int x1, int y1) {
+        return (double) sum(x0, y0, x1, y1) / ((long) (x1 - x0) * (y1 - y0));
+    }
+
+    public double variance(int x0, int y0, int x1, int y1) {
+        double count = (double) (x1 - x0) * (y1 - y0);
+        double mean = sum(x0, y0, x1, y1) / count;
+        return Math.max(0, sumOfSquares(x0, y0, x1, y1) / count - mean * mean);
+    }
+
+    private long rectangle(long[] table, int x0, int y0, int x1, int y1) {
+        return table[y1 * stride + x1] - table[y0 * stride + x1] - table[y1 * stride + x0] + table[y0 * stride + x0];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean hasSquares() {
+        return squares != null;
+    }
+}
@@ -0,0 +1,523 @@
+package com.image.imageprocessing.transform;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+import com.image.imageprocessing.filter.ImageFilter;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Resize, crop, rotate or general affine warp, computed one output tile at a time
+ * by mapping every output pixel back into the source.
+ *
+ * Unlike other filters the output size generally differs from the input, so the
+ * tile grid is laid over the output: {@link #plan} fixes the output size and
+ * sampling tables for one source image, and {@link Plan#transformTile} fills one
+ * output tile. Axis-aligned maps (resize, crop, scale + translate) are sampled
+ * separably from per-column and per-row coefficient tables; when shrinking, the
+ * kernel is widened by the scale factor so downscaling averages rather than aliases.
+ * Other maps look up the source position from per-row and per-column terms and
+ * take their weights from a sub-pixel phase table.
+ *
+ * Output pixels that map outside the source are transparent. Colours are
+ * interpolated with premultiplied alpha so transparent pixels do not bleed.
+ */
+public class GeometricTransform implements ImageFilter {
+
+    /**
+     * Output size plus the inverse map from output to source pixel coordinates,
+     * where pixel (i, j) covers [i, i + 1) x [j, j + 1).
+     */
+    public record Mapping(int width, int height, AffineTransform inverse) {
+    }
+
+    @FunctionalInterface
+    private interface MappingFunction {
+        Mapping map(int sourceWidth, int sourceHeight);
+    }
+
+    private final MappingFunction mappingFunction;
+    private final Interpolation interpolation;
+
+    private GeometricTransform(MappingFunction mappingFunction, Interpolation interpolation) {
+        this.mappingFunction = mappingFunction;
+        this.interpolation = interpolation;
+    }
+
+    /**
+     * Resizes to exactly width x height.
+     */
+    public static GeometricTransform resize(int width, int height, Interpolation interpolation) {
+        requirePositive(width, height);
+        return new GeometricTransform((sourceWidth, sourceHeight) -> new Mapping(width, height,
+                AffineTransform.getScaleInstance((double) sourceWidth / width, (double) sourceHeight / height)),
+                interpolation);
+    }
+
+    /**
+     * Resizes both axes by the same factor, rounding the output size to whole pixels.
+     */
+    public static GeometricTransform scale(double factor, Interpolation interpolation) {
+        if (!(factor > 0)) {
+            throw new IllegalArgumentException("Scale factor must be positive: " + factor);
+        }
+        return new GeometricTransform((sourceWidth, sourceHeight) -> {
+            int width = Math.max(1, (int) Math.round(sourceWidth * factor));
+            int height = Math.max(1, (int) Math.round(sourceHeight * factor));
+            return new Mapping(width, height,
+                    AffineTransform.getScaleInstance((double) sourceWidth / width, (double) sourceHeight / height));
+        }, interpolation);
+    }
+
+    /**
+     * Cuts out a rectangle of the source unchanged.
+     */
+    public static GeometricTransform crop(int x, int y, int width, int height) {
+        requirePositive(width, height);
+        if (x < 0 || y < 0) {
+            throw new IllegalArgumentException("Crop origin must not be negative: " + x + "," + y);
+        }
+        return new GeometricTransform((sourceWidth, sourceHeight) -> {
+            if (x + width > sourceWidth || y + height > sourceHeight) {
+                throw new IllegalArgumentException("Crop " + width + "x" + height + " at " + x + "," + y
+                        + " exceeds source size " + sourceWidth + "x" + sourceHeight);
+            }
+            return new Mapping(width, height, AffineTransform.getTranslateInstance(x, y));
+        }, Interpolation.NEAREST);
+    }
+
+    /**
+     * Rotates clockwise about the image centre. The output is the rotated image's
+     * bounding box, so nothing is cut off and quarter turns swap width and height.
+     */
+    public static GeometricTransform rotate(double degrees, Interpolation interpolation) {
+        double radians = Math.toRadians(degrees);
+        // Snap so quarter turns map pixel centres exactly onto pixel centres
+        double cos = snap(Math.cos(radians));
+        double sin = snap(Math.sin(radians));
+
+        return new GeometricTransform((sourceWidth, sourceHeight) -> {
+            int width = Math.max(1, (int) Math.ceil(Math.abs(sourceWidth * cos) + Math.abs(sourceHeight * sin) - 1e-9));
+            int height = Math.max(1, (int) Math.ceil(Math.abs(sourceWidth * sin) + Math.abs(sourceHeight * cos) - 1e-9));
+
+            AffineTransform forward = AffineTransform.getTranslateInstance(width / 2.0, height / 2.0);
+            forward.concatenate(new AffineTransform(cos, sin, -sin, cos, 0, 0));
+            forward.translate(-sourceWidth / 2.0, -sourceHeight / 2.0);
+            return new Mapping(width, height, invert(forward));
+        }, interpolation);
+    }
+
+    /**
+     * Warps with an arbitrary forward affine map from source to output pixel coordinates.
+     */
+    public static GeometricTransform affine(AffineTransform forward, int width, int height,
+                                            Interpolation interpolation) {
+        requirePositive(width, height);
+        AffineTransform inverse = invert(forward);
+        return new GeometricTransform(
+                (sourceWidth, sourceHeight) -> new Mapping(width, height, new AffineTransform(inverse)),
+                interpolation);
+    }
+
+    private static void requirePositive(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Output dimensions must be positive: " + width + "x" + height);
+        }
+    }
+
+    private static double snap(double value) {
+        double rounded = Math.rint(value);
+        return Math.abs(value - rounded) < 1e-12 ? rounded : value;
+    }
+
+    private static AffineTransform invert(AffineTransform forward) {
+        try {
+            return forward.createInverse();
+        } catch (NoninvertibleTransformException e) {
+            throw new IllegalArgumentException("Transform is not invertible: " + forward, e);
+        }
+    }
+
+    public Mapping mappingFor(int sourceWidth, int sourceHeight) {
+        return mappingFunction.map(sourceWidth, sourceHeight);
+    }
+
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    /**
+     * Prepares the output image and sampling tables for one source image.
+     */
+    public Plan plan(BufferedImage source) {
+        return new Plan(source, mappingFor(source.getWidth(), source.getHeight()), null);
+    }
+
+    /**
+     * Prepares a plan that writes into an existing image instead of allocating one.
+     *
+     * @param destination An INT_RGB, INT_ARGB or INT_ARGB_PRE image of the output size
+     *        that owns its whole pixel array, not a subimage
+     */
+    public Plan plan(BufferedImage source, BufferedImage destination) {
+        Mapping mapping = mappingFor(source.getWidth(), source.getHeight());
+        if (destination.getWidth() != mapping.width() || destination.getHeight() != mapping.height()) {
+            throw new IllegalArgumentException("Destination is " + destination.getWidth() + "x"
+                    + destination.getHeight() + " but the output is " + mapping.width() + "x" + mapping.height());
+        }
+        int type = destination.getType();
+        WritableRaster raster = destination.getRaster();
+        boolean packedInts = type == BufferedImage.TYPE_INT_RGB
+                || type == BufferedImage.TYPE_INT_ARGB
+                || type == BufferedImage.TYPE_INT_ARGB_PRE;
+        if (!packedInts || raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+                || ((DataBufferInt) raster.getDataBuffer()).getData().length != mapping.width() * mapping.height()) {
+            throw new IllegalArgumentException("Destination must be a whole INT_RGB, INT_ARGB or INT_ARGB_PRE image");
+        }
+        return new Plan(source, mapping, destination);
+    }
+
+    /**
+     * Transforms the whole image, tile-parallel over the output.
+     */
+    @Override
+    public BufferedImage filter(BufferedImage image) {
+        Plan plan = plan(image);
+        try {
+            new TileGrid(plan.getWidth(), plan.getHeight(), DEFAULT_TILE_SIZE).forEachTile(plan::transformTile);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Geometric transform interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Geometric transform failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return plan.getResult();
+    }
+
+    /**
+     * One source image bound to its output. Tiles of the output may be filled in any
+     * order and concurrently; each writes only its own pixels of the result.
+     */
+    public final class Plan {
+
+        private final int[] source;
+        private final int sourceWidth;
+        private final int sourceHeight;
+        private final int width;
+        private final int height;
+        private final BufferedImage result;
+        private final int[] target;
+        private final boolean premultiplied;
+
+        // Separable maps
+        private final Coefficients columns;
+        private final Coefficients rows;
+
+        // General maps: source position = column term + row term
+        private final double[] columnU;
+        private final double[] columnV;
+        private final double[] rowU;
+        private final double[] rowV;
+
+        private Plan(BufferedImage image, Mapping mapping, BufferedImage destination) {
+            this.sourceWidth = image.getWidth();
+            this.sourceHeight = image.getHeight();
+            this.source = image.getRGB(0, 0, sourceWidth, sourceHeight, null, 0, sourceWidth);
+            this.width = mapping.width();
+            this.height = mapping.height();
+
+            AffineTransform inverse = mapping.inverse();
+            boolean transparent = image.getColorModel().hasAlpha() || !coversOutput(inverse);
+            this.result = destination != null ? destination : new BufferedImage(width, height,
+                    transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            this.target = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+            this.premultiplied = result.isAlphaPremultiplied();
+
+            if (inverse.getShearX() == 0 && inverse.getShearY() == 0) {
+                this.columns = Coefficients.compute(inverse.getScaleX(), inverse.getTranslateX(),
+                        width, sourceWidth, interpolation);
+                this.rows = Coefficients.compute(inverse.getScaleY(), inverse.getTranslateY(),
+                        height, sourceHeight, interpolation);
+                this.columnU = null;
+                this.columnV = null;
+                this.rowU = null;
+                this.rowV = null;
+            } else {
+                this.columns = null;
+                this.rows = null;
+                this.columnU = new double[width];
+                this.columnV = new double[width];
+                for (int x = 0; x < width; x++) {
+                    columnU[x] = inverse.getScaleX() * (x + 0.5);
+                    columnV[x] = inverse.getShearY() * (x + 0.5);
+                }
+                this.rowU = new double[height];
+                this.rowV = new double[height];
+                for (int y = 0; y < height; y++) {
+                    rowU[y] = inverse.getShearX() * (y + 0.5) + inverse.getTranslateX();
+                    rowV[y] = inverse.getScaleY() * (y + 0.5) + inverse.getTranslateY();
+                }
+            }
+        }
+
+        /**
+         * An affine map sends the output rectangle to a parallelogram, so it covers
+         * the output iff all four corner pixel centres land inside the source.
+         */
+        private boolean coversOutput(AffineTransform inverse) {
+            double[][] corners = {{0.5, 0.5}, {width - 0.5, 0.5}, {0.5, height - 0.5}, {width - 0.5, height - 0.5}};
+            for (double[] corner : corners) {
+                Point2D p = inverse.transform(new Point2D.Double(corner[0], corner[1]), null);
+                if (p.getX() < 0 || p.getX() >= sourceWidth || p.getY() < 0 || p.getY() >= sourceHeight) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void transformTile(TileGrid.Tile tile) {
+            if (columns != null) {
+                transformSeparable(tile);
+            } else {
+                transformGeneral(tile);
+            }
+        }
+
+        /**
+         * Horizontal pass over just the source rows this tile needs into a
+         * premultiplied float buffer, then a vertical pass into the target.
+         */
+        private void transformSeparable(TileGrid.Tile tile) {
+            int tx0 = tile.x();
+            int tw = tile.width();
+            int rowTaps = rows.taps;
+            int columnTaps = columns.taps;
+
+            int firstRow = Integer.MAX_VALUE;
+            int lastRow = Integer.MIN_VALUE;
+            for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+                for (int k = 0; k < rowTaps; k++) {
+                    firstRow = Math.min(firstRow, rows.index[y * rowTaps + k]);
+                    lastRow = Math.max(lastRow, rows.index[y * rowTaps + k]);
+                }
+            }
+
+            float[] horizontal = new float[(lastRow - firstRow + 1) * tw * 4];
+            for (int sy = firstRow; sy <= lastRow; sy++) {
+                int sourceRow = sy * sourceWidth;
+                int o = (sy - firstRow) * tw * 4;
+                for (int x = tx0; x < tx0 + tw; x++, o += 4) {
+                    float a = 0, r = 0, g = 0, b = 0;
+                    int c = x * columnTaps;
+                    for (int k = 0; k < columnTaps; k++) {
+                        float w = columns.weight[c + k];
+                        if (w == 0) {
+                            continue;
+                        }
+                        int p = source[sourceRow + columns.index[c + k]];
+                        float wa = w * (p >>> 24);
+                        a += wa;
+                        r += wa * ((p >> 16) & 0xFF);
+                        g += wa * ((p >> 8) & 0xFF);
+                        b += wa * (p & 0xFF);
+                    }
+                    horizontal[o] = a;
+                    horizontal[o + 1] = r;
+                    horizontal[o + 2] = g;
+                    horizontal[o + 3] = b;
+                }
+            }
+
+            for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+                int out = y * width + tx0;
+                if (!rows.inside[y]) {
+                    Arrays.fill(target, out, out + tw, 0);
+                    continue;
+                }
+                int c = y * rowTaps;
+                for (int x = 0; x < tw; x++) {
+                    if (!columns.inside[tx0 + x]) {
+                        target[out + x] = 0;
+                        continue;
+                    }
+                    float a = 0, r = 0, g = 0, b = 0;
+                    for (int k = 0; k < rowTaps; k++) {
+                        float w = rows.weight[c + k];
+                        if (w == 0) {
+                            continue;
+                        }
+                        int i = ((rows.index[c + k] - firstRow) * tw + x) * 4;
+                        a += w * horizontal[i];
+                        r += w * horizontal[i + 1];
+                        g += w * horizontal[i + 2];
+                        b += w * horizontal[i + 3];
+                    }
+                    target[out + x] = store(unpremultiply(a, r, g, b));
+                }
+            }
+        }
+
+        private void transformGeneral(TileGrid.Tile tile) {
+            int radius = interpolation.radius();
+            int taps = interpolation.taps();
+            float[] phases = interpolation == Interpolation.NEAREST ? null : interpolation.phaseTable();
+
+            for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+                int out = y * width;
+                for (int x = tile.x(); x < tile.x() + tile.width(); x++) {
+                    double u = columnU[x] + rowU[y];
+                    double v = columnV[x] + rowV[y];
+                    if (!(u >= 0 && u < sourceWidth && v >= 0 && v < sourceHeight)) {
+                        target[out + x] = 0;
+                        continue;
+                    }
+                    if (phases == null) {
+                        target[out + x] = store(source[(int) v * sourceWidth + (int) u]);
+                        continue;
+                    }
+
+                    // Sample position in pixel-index space
+                    double sx = u - 0.5;
+                    double sy = v - 0.5;
+                    int fx = (int) Math.floor(sx);
+                    int fy = (int) Math.floor(sy);
+                    int xWeights = Math.min(Interpolation.PHASES - 1, (int) ((sx - fx) * Interpolation.PHASES)) * taps;
+                    int yWeights = Math.min(Interpolation.PHASES - 1, (int) ((sy - fy) * Interpolation.PHASES)) * taps;
+                    int x0 = fx - radius + 1;
+                    int y0 = fy - radius + 1;
+
+                    float a = 0, r = 0, g = 0, b = 0;
+                    for (int ky = 0; ky < taps; ky++) {
+                        float wy = phases[yWeights + ky];
+                        int row = clamp(y0 + ky, sourceHeight) * sourceWidth;
+                        for (int kx = 0; kx < taps; kx++) {
+                            int p = source[row + clamp(x0 + kx, sourceWidth)];
+                            float wa = wy * phases[xWeights + kx] * (p >>> 24);
+                            a += wa;
+                            r += wa * ((p >> 16) & 0xFF);
+                            g += wa * ((p >> 8) & 0xFF);
+                            b += wa * (p & 0xFF);
+                        }
+                    }
+                    target[out + x] = store(unpremultiply(a, r, g, b));
+                }
+            }
+        }
+
+        /**
+         * Converts a non-premultiplied ARGB pixel to the result's storage format.
+         */
+        private int store(int argb) {
+            int alpha = argb >>> 24;
+            if (!premultiplied || alpha == 255) {
+                return argb;
+            }
+            return (alpha << 24)
+                    | (((argb >> 16 & 0xFF) * alpha + 127) / 255 << 16)
+                    | (((argb >> 8 & 0xFF) * alpha + 127) / 255 << 8)
+                    | ((argb & 0xFF) * alpha + 127) / 255;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * The output image; complete once every tile has been transformed.
+         */
+        public BufferedImage getResult() {
+            return result;
+        }
+    }
+
+    private static int unpremultiply(float a, float r, float g, float b) {
+        if (a <= 0) {
+            return 0;
+        }
+        int alpha = Math.min(255, Math.round(a));
+        return (alpha << 24)
+                | (toChannel(r / a) << 16)
+                | (toChannel(g / a) << 8)
+                | toChannel(b / a);
+    }
+
+    private static int toChannel(float value) {
+        return Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    /**
+     * Per output column (or row): whether its centre maps inside the source, and the
+     * source indices and normalised weights of a fixed number of taps. Indices are
+     * clamped to the source, and unused taps have zero weight.
+     */
+    private static final class Coefficients {
+        final int taps;
+        final int[] index;
+        final float[] weight;
+        final boolean[] inside;
+
+        private Coefficients(int taps, int[] index, float[] weight, boolean[] inside) {
+            this.taps = taps;
+            this.index = index;
+            this.weight = weight;
+            this.inside = inside;
+        }
+
+        static Coefficients compute(double scale, double offset, int outputLength, int sourceLength,
+                                    Interpolation interpolation) {
+            boolean[] inside = new boolean[outputLength];
+
+            if (interpolation == Interpolation.NEAREST) {
+                int[] index = new int[outputLength];
+                float[] weight = new float[outputLength];
+                for (int o = 0; o < outputLength; o++) {
+                    double u = scale * (o + 0.5) + offset;
+                    inside[o] = u >= 0 && u < sourceLength;
+                    index[o] = clamp((int) Math.floor(u), sourceLength);
+                    weight[o] = 1;
+                }
+                return new Coefficients(1, index, weight, inside);
+            }
+
+            // Shrinking widens the kernel so every source pixel contributes
+            double stretch = Math.max(1.0, Math.abs(scale));
+            double support = interpolation.radius() * stretch;
+            int taps = (int) Math.ceil(2 * support) + 1;
+            int[] index = new int[outputLength * taps];
+            float[] weight = new float[outputLength * taps];
+
+            for (int o = 0; o < outputLength; o++) {
+                double u = scale * (o + 0.5) + offset;
+                inside[o] = u >= 0 && u < sourceLength;
+                double s = u - 0.5;
+                int first = (int) Math.floor(s - support) + 1;
+
+                double sum = 0;
+                for (int k = 0; k < taps; k++) {
+                    double w = interpolation.kernel((first + k - s) / stretch);
+                    weight[o * taps + k] = (float) w;
+                    index[o * taps + k] = clamp(first + k, sourceLength);
+                    sum += w;
+                }
+                for (int k = 0; k < taps; k++) {
+                    weight[o * taps + k] = (float) (weight[o * taps + k] / sum);
+                }
+            }
+            return new Coefficients(taps, index, weight, inside);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.image.imageprocessing.transform;
+
+/**
+ * Sampling kernels for geometric transforms.
+ */
+public enum Interpolation {
+    NEAREST(0),
+    BILINEAR(1),
+    BICUBIC(2);
+
+    /** Sub-pixel positions tabulated for non-separable sampling. */
+    static final int PHASES = 256;
+
+    private final int radius;
+    private volatile float[] phaseTable;
+
+    Interpolation(int radius) {
+        this.radius = radius;
+    }
+
+    /**
+     * Half-width of the kernel in source pixels at unit scale.
+     */
+    int radius() {
+        return radius;
+    }
+
+    /**
+     * Samples read per axis at unit scale.
+     */
+    int taps() {
+        return this == NEAREST ? 1 : 2 * radius;
+    }
+
+    /**
+     * Kernel weight at distance x from the sample position: a triangle for bilinear
+     * and Keys' cubic with a = -0.5 (Catmull-Rom) for bicubic.
+     */
+    double kernel(double x) {
+        x = Math.abs(x);
+        return switch (this) {
+            case NEAREST -> x < 0.5 ? 1.0 : 0.0;
+            case BILINEAR -> x < 1.0 ? 1.0 - x : 0.0;
+            case BICUBIC -> {
+                if (x < 1.0) {
+                    yield (1.5 * x - 2.5) * x * x + 1.0;
+                }
+                if (x < 2.0) {
+                    yield ((-0.5 * x + 2.5) * x - 4.0) * x + 2.0;
+                }
+                yield 0.0;
+            }
+        };
+    }
+
+    /**
+     * Weights for {@link #taps()} samples starting at {@code floor(s) - radius + 1},
+     * for each of {@link #PHASES} fractional positions of s, laid out phase-major.
+     * Bilinear and bicubic only; nearest sampling needs no weights.
+     */
+    float[] phaseTable() {
+        float[] table = phaseTable;
+        if (table == null) {
+            int taps = taps();
+            table = new float[PHASES * taps];
+            for (int phase = 0; phase < PHASES; phase++) {
+                double fraction = (double) phase / PHASES;
+                for (int k = 0; k < taps; k++) {
+                    table[phase * taps + k] = (float) kernel(k - radius + 1 - fraction);
+                }
+            }
+            phaseTable = table;
+        }
+        return table;
+    }
+}
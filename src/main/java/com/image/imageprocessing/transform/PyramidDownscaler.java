@@ -0,0 +1,290 @@
+package com.image.imageprocessing.transform;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Produces several downscaled copies of an image from a single read of the source.
+ * A mipmap pyramid is built with parallel 2x box averaging, and each requested size
+ * is then area-resampled from the smallest pyramid level that is still at least as
+ * large as the target, so the final step never shrinks by more than 2x per axis
+ * unless the aspect ratio changes.
+ *
+ * Images with alpha are averaged premultiplied, so the colour of fully transparent
+ * pixels never bleeds into the visible edges of a thumbnail.
+ */
+public class PyramidDownscaler {
+
+    private final int tileSize;
+
+    public PyramidDownscaler(int tileSize) {
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Downscales the image to every requested size.
+     *
+     * @param source The full-size image
+     * @param targetSizes The exact output sizes, none larger than the source and no size twice
+     * @return The thumbnails keyed by their requested size, in request order
+     */
+    public Map<Dimension, BufferedImage> downscale(BufferedImage source, List<Dimension> targetSizes)
+            throws InterruptedException, ExecutionException {
+
+        int width = source.getWidth();
+        int height = source.getHeight();
+        Set<Dimension> distinct = new HashSet<>();
+        for (Dimension size : targetSizes) {
+            if (!distinct.add(size)) {
+                throw new IllegalArgumentException("Thumbnail size requested twice: " + size.width + "x" + size.height);
+            }
+            if (size.width <= 0 || size.height <= 0) {
+                throw new IllegalArgumentException("Thumbnail size must be positive: " + size.width + "x" + size.height);
+            }
+            if (size.width > width || size.height > height) {
+                throw new IllegalArgumentException("Thumbnail size " + size.width + "x" + size.height
+                        + " exceeds source size " + width + "x" + height);
+            }
+        }
+
+        boolean hasAlpha = source.getColorModel().hasAlpha();
+        List<Level> pyramid = new ArrayList<>();
+        int[] pixels = source.getRGB(0, 0, width, height, null, 0, width);
+        if (hasAlpha) {
+            premultiply(pixels);
+        }
+        pyramid.add(new Level(pixels, width, height));
+
+        // Largest first so each level is built at most once and reused by smaller sizes
+        List<Dimension> ordered = new ArrayList<>(targetSizes);
+        ordered.sort(Comparator.comparingLong((Dimension d) -> (long) d.width * d.height).reversed());
+
+        Map<Dimension, BufferedImage> resampled = new LinkedHashMap<>();
+        for (Dimension size : ordered) {
+            Level level = levelFor(pyramid, size);
+            int[] thumbnail = areaResample(level, size.width, size.height);
+            resampled.put(size, toImage(thumbnail, size.width, size.height, hasAlpha));
+        }
+
+        Map<Dimension, BufferedImage> result = new LinkedHashMap<>();
+        for (Dimension size : targetSizes) {
+            result.put(size, resampled.get(size));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the smallest level that still covers the target, building levels on demand.
+     */
+    private Level levelFor(List<Level> pyramid, Dimension target) throws InterruptedException, ExecutionException {
+        int index = 0;
+        while (true) {
+            Level current = pyramid.get(index);
+            int nextWidth = current.width / 2;
+            int nextHeight = current.height / 2;
+            if (nextWidth < target.width || nextHeight < target.height) {
+                return current;
+            }
+            if (index + 1 == pyramid.size()) {
+                pyramid.add(halve(current));
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Builds the next pyramid level by averaging 2x2 blocks, one tile per task.
+     */
+    private Level halve(Level src) throws InterruptedException, ExecutionException {
+        int dstWidth = src.width / 2;
+        int dstHeight = src.height / 2;
+        int[] srcPixels = src.pixels;
+        int srcWidth = src.width;
+        int[] dst = new int[dstWidth * dstHeight];
+
+        new TileGrid(dstWidth, dstHeight, tileSize).forEachTile(tile -> {
+            for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+                int row0 = (2 * y) * srcWidth;
+                int row1 = row0 + srcWidth;
+                for (int x = tile.x(); x < tile.x() + tile.width(); x++) {
+                    int sx = 2 * x;
+                    int p00 = srcPixels[row0 + sx];
+                    int p01 = srcPixels[row0 + sx + 1];
+                    int p10 = srcPixels[row1 + sx];
+                    int p11 = srcPixels[row1 + sx + 1];
+
+                    int a = ((p00 >>> 24) + (p01 >>> 24) + (p10 >>> 24) + (p11 >>> 24) + 2) >> 2;
+                    int r = (((p00 >> 16) & 0xFF) + ((p01 >> 16) & 0xFF) + ((p10 >> 16) & 0xFF) + ((p11 >> 16) & 0xFF) + 2) >> 2;
+                    int g = (((p00 >> 8) & 0xFF) + ((p01 >> 8) & 0xFF) + ((p10 >> 8) & 0xFF) + ((p11 >> 8) & 0xFF) + 2) >> 2;
+                    int b = ((p00 & 0xFF) + (p01 & 0xFF) + (p10 & 0xFF) + (p11 & 0xFF) + 2) >> 2;
+
+                    dst[y * dstWidth + x] = (a << 24) | (r << 16) | (g << 8) | b;
+                }
+            }
+        });
+
+        return new Level(dst, dstWidth, dstHeight);
+    }
+
+    /**
+     * Resamples a level to the exact target size with area averaging, done as
+     * separable horizontal and vertical passes over parallel tiles.
+     */
+    private int[] areaResample(Level src, int dstWidth, int dstHeight) throws InterruptedException, ExecutionException {
+        if (src.width == dstWidth && src.height == dstHeight) {
+            return src.pixels;
+        }
+
+        AreaCoefficients columns = AreaCoefficients.compute(src.width, dstWidth);
+        AreaCoefficients rows = AreaCoefficients.compute(src.height, dstHeight);
+
+        // Horizontal pass: src.width x src.height -> dstWidth x src.height, four channels interleaved
+        float[] horizontal = new float[dstWidth * src.height * 4];
+        int[] srcPixels = src.pixels;
+        int srcWidth = src.width;
+
+        new TileGrid(dstWidth, src.height, tileSize).forEachTile(tile -> {
+            for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+                int srcRow = y * srcWidth;
+                for (int x = tile.x(); x < tile.x() + tile.width(); x++) {
+                    float a = 0, r = 0, g = 0, b = 0;
+                    int start = columns.start[x];
+                    float[] weights = columns.weights[x];
+                    for (int k = 0; k < weights.length; k++) {
+                        int p = srcPixels[srcRow + start + k];
+                        float w = weights[k];
+                        a += (p >>> 24) * w;
+                        r += ((p >> 16) & 0xFF) * w;
+                        g += ((p >> 8) & 0xFF) * w;
+                        b += (p & 0xFF) * w;
+                    }
+                    int o = (y * dstWidth + x) * 4;
+                    horizontal[o] = a;
+                    horizontal[o + 1] = r;
+                    horizontal[o + 2] = g;
+                    horizontal[o + 3] = b;
+                }
+            }
+        });
+
+        // Vertical pass: dstWidth x src.height -> dstWidth x dstHeight
+        int[] dst = new int[dstWidth * dstHeight];
+
+        new TileGrid(dstWidth, dstHeight, tileSize).forEachTile(tile -> {
+            for (int y = tile.y(); y < tile.y() + tile.height(); y++) {
+                int start = rows.start[y];
+                float[] weights = rows.weights[y];
+                for (int x = tile.x(); x < tile.x() + tile.width(); x++) {
+                    float a = 0, r = 0, g = 0, b = 0;
+                    for (int k = 0; k < weights.length; k++) {
+                        int i = ((start + k) * dstWidth + x) * 4;
+                        float w = weights[k];
+                        a += horizontal[i] * w;
+                        r += horizontal[i + 1] * w;
+                        g += horizontal[i + 2] * w;
+                        b += horizontal[i + 3] * w;
+                    }
+                    dst[y * dstWidth + x] = (toChannel(a) << 24) | (toChannel(r) << 16)
+                            | (toChannel(g) << 8) | toChannel(b);
+                }
+            }
+        });
+
+        return dst;
+    }
+
+    private static int toChannel(float value) {
+        return Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    /**
+     * Levels of images with alpha hold premultiplied pixels; these are converted back
+     * into a new array, since a level can be returned as is and reused for smaller sizes.
+     */
+    private static BufferedImage toImage(int[] pixels, int width, int height, boolean hasAlpha) {
+        BufferedImage image = new BufferedImage(width, height,
+                hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, hasAlpha ? unpremultiply(pixels) : pixels, 0, width);
+        return image;
+    }
+
+    private static void premultiply(int[] pixels) {
+        for (int i = 0; i < pixels.length; i++) {
+            int p = pixels[i];
+            int a = p >>> 24;
+            if (a == 255) {
+                continue;
+            }
+            int r = (((p >> 16) & 0xFF) * a + 127) / 255;
+            int g = (((p >> 8) & 0xFF) * a + 127) / 255;
+            int b = ((p & 0xFF) * a + 127) / 255;
+            pixels[i] = (a << 24) | (r << 16) | (g << 8) | b;
+        }
+    }
+
+    private static int[] unpremultiply(int[] pixels) {
+        int[] straight = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            int p = pixels[i];
+            int a = p >>> 24;
+            if (a == 255 || a == 0) {
+                straight[i] = a == 0 ? 0 : p;
+                continue;
+            }
+            int r = Math.min(255, (((p >> 16) & 0xFF) * 255 + a / 2) / a);
+            int g = Math.min(255, (((p >> 8) & 0xFF) * 255 + a / 2) / a);
+            int b = Math.min(255, ((p & 0xFF) * 255 + a / 2) / a);
+            straight[i] = (a << 24) | (r << 16) | (g << 8) | b;
+        }
+        return straight;
+    }
+
+    private record Level(int[] pixels, int width, int height) {
+    }
+
+    /**
+     * Per output index: the first source sample it covers and the normalised
+     * coverage weight of every source sample in its footprint.
+     */
+    private static final class AreaCoefficients {
+        final int[] start;
+        final float[][] weights;
+
+        private AreaCoefficients(int[] start, float[][] weights) {
+            this.start = start;
+            this.weights = weights;
+        }
+
+        static AreaCoefficients compute(int srcLength, int dstLength) {
+            double scale = (double) srcLength / dstLength;
+            int[] start = new int[dstLength];
+            float[][] weights = new float[dstLength][];
+
+            for (int o = 0; o < dstLength; o++) {
+                double from = o * scale;
+                double to = Math.min(srcLength, (o + 1) * scale);
+                int first = (int) Math.floor(from);
+                int last = Math.min(srcLength - 1, (int) Math.ceil(to) - 1);
+
+                float[] w = new float[last - first + 1];
+                for (int i = first; i <= last; i++) {
+                    double coverage = Math.min(to, i + 1) - Math.max(from, i);
+                    w[i - first] = (float) (coverage / scale);
+                }
+                start[o] = first;
+                weights[o] = w;
+            }
+            return new AreaCoefficients(start, weights);
+        }
+    }
+}
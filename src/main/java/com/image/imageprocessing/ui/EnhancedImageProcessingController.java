@@ -1,21 +1,23 @@
 package com.image.imageprocessing.ui;
 
 import com.image.imageprocessing.concurrency.AsyncImageProcessor;
+import com.image.imageprocessing.concurrency.TuningProfile;
 import com.image.imageprocessing.filter.*;
+import com.image.imageprocessing.transform.GeometricTransform;
 import com.image.imageprocessing.utils.ImageIOUtil;
 import com.image.imageprocessing.utils.PerformanceMetrics;
 
 import javafx.application.Platform;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.InputStream;
@@ -36,23 +38,26 @@ public class EnhancedImageProcessingController {
     @FXML private ProgressIndicator progressIndicator;
 
     private BufferedImage currentImage;
-    private BufferedImage liveRenderingImage;
+    // Shared with the image views, so tiles and loads show up without AWT/FX conversions
+    private SharedImageBuffer sourceBuffer;
+    private SharedImageBuffer resultBuffer;
 
     private AsyncImageProcessor asyncProcessor;
     private PerformanceMetrics metrics;
 
     /** Initialization */
     public void initialize() {
-        asyncProcessor = new AsyncImageProcessor(50);
+        TuningProfile tuningProfile = TuningProfile.loadDefault();
+        asyncProcessor = new AsyncImageProcessor(ImageFilter.DEFAULT_TILE_SIZE, tuningProfile);
         metrics = new PerformanceMetrics();
 
-        filterComboBox.getItems().addAll(
-                "Grayscale", "Sepia", "Blur", "Sharpen", "Edge Detection",
-                "Brightness (+50)", "Brightness (-50)", "Contrast (High)", "Contrast (Low)"
-        );
+        filterComboBox.getItems().addAll(FilterFactory.getFilterNames());
         filterComboBox.setValue("Grayscale");
 
         loadDefaultImage();
+        if (!tuningProfile.isEmpty()) {
+            log("⚙ Loaded tuning profile: " + TuningProfile.DEFAULT_PATH);
+        }
         log("✔ Application initialized.");
     }
 
@@ -74,9 +79,9 @@ public class EnhancedImageProcessingController {
             File file = chooser.showOpenDialog(stage);
 
             if (file != null) {
-                currentImage = ImageIOUtil.readImage(file.getAbsolutePath());
-                originalImageView.setImage(SwingFXUtils.toFXImage(currentImage, null));
+                showSourceImage(ImageIOUtil.readImage(file.getAbsolutePath()));
                 processedImageView.setImage(null);
+                resultBuffer = null;
                 metricsLabel.setText("Ready");
                 statusLabel.setText("Loaded: " + file.getName());
                 log("📁 Image loaded: " + file.getName());
@@ -100,27 +105,33 @@ public class EnhancedImageProcessingController {
         statusLabel.setText("Processing...");
         progressIndicator.setVisible(true);
 
-        liveRenderingImage = new BufferedImage(
-                currentImage.getWidth(),
-                currentImage.getHeight(),
-                BufferedImage.TYPE_INT_ARGB
-        );
+        // Geometric transforms produce tiles in output coordinates, which may not match the source
+        int outputWidth = currentImage.getWidth();
+        int outputHeight = currentImage.getHeight();
+        if (filter instanceof GeometricTransform transform) {
+            GeometricTransform.Mapping mapping = transform.mappingFor(outputWidth, outputHeight);
+            outputWidth = mapping.width();
+            outputHeight = mapping.height();
+        }
 
-        processedImageView.setImage(SwingFXUtils.toFXImage(liveRenderingImage, null));
+        SharedImageBuffer liveBuffer = new SharedImageBuffer(outputWidth, outputHeight);
+        resultBuffer = liveBuffer;
+        processedImageView.setImage(liveBuffer.getFxImage());
 
-        // Store tile operations for later playback
-        List<Runnable> revealQueue = Collections.synchronizedList(new ArrayList<>());
+        // Tiles land in the buffer as they finish; only their rectangles are kept for the playback
+        List<Rectangle> revealQueue = Collections.synchronizedList(new ArrayList<>());
 
         Thread.ofVirtual().start(() -> {
             try {
-                BufferedImage finalImage = asyncProcessor.processWithStructuredConcurrency(
+                asyncProcessor.processInto(
                         currentImage,
                         filter,
+                        liveBuffer.getImage(),
                         metrics,
-                        (tile, x, y) -> revealQueue.add(() -> revealTile(tile, x, y))
+                        (tile, x, y) -> revealQueue.add(new Rectangle(x, y, tile.getWidth(), tile.getHeight()))
                 );
 
-                Platform.runLater(() -> startRevealAnimation(revealQueue, finalImage));
+                Platform.runLater(() -> startRevealAnimation(revealQueue, liveBuffer));
 
             } catch (Exception e) {
                 Platform.runLater(() -> {
@@ -133,7 +144,7 @@ public class EnhancedImageProcessingController {
     }
 
     /** Smooth sequential reveal instead of instant update */
-    private void startRevealAnimation(List<Runnable> revealQueue, BufferedImage finalImage) {
+    private void startRevealAnimation(List<Rectangle> revealQueue, SharedImageBuffer liveBuffer) {
         statusLabel.setText("🎬 Revealing tiles...");
         progressIndicator.setVisible(false);
 
@@ -141,13 +152,13 @@ public class EnhancedImageProcessingController {
         final int delay = 40;
 
         new Thread(() -> {
-            for (Runnable tileAction : revealQueue) {
+            for (Rectangle region : revealQueue) {
                 try { Thread.sleep(delay); } catch (InterruptedException ignored) {}
-                Platform.runLater(tileAction);
+                Platform.runLater(() -> revealTile(liveBuffer, region));
             }
 
             Platform.runLater(() -> {
-                processedImageView.setImage(SwingFXUtils.toFXImage(finalImage, null));
+                liveBuffer.flush();
                 statusLabel.setText("✔ Showcase Complete!");
                 metricsLabel.setText(metrics.toShortString());
                 log("🎉 Slow reveal finished.");
@@ -156,24 +167,21 @@ public class EnhancedImageProcessingController {
         }, "Showcase-Reveal-Thread").start();
     }
 
-    /** Tile drawing */
-    private void revealTile(BufferedImage tile, int x, int y) {
-        for (int yy = 0; yy < tile.getHeight(); yy++)
-            for (int xx = 0; xx < tile.getWidth(); xx++)
-                liveRenderingImage.setRGB(x + xx, y + yy, tile.getRGB(xx, yy));
-
-        processedImageView.setImage(SwingFXUtils.toFXImage(liveRenderingImage, null));
+    /** Tile reveal: the pixels are already in the buffer, only the tile's rectangle is re-uploaded */
+    private void revealTile(SharedImageBuffer liveBuffer, Rectangle region) {
+        liveBuffer.markDirty(region.x, region.y, region.width, region.height);
+        liveBuffer.flush();
     }
 
     /** Save */
     @FXML
     private void handleSaveImage() {
-        if (liveRenderingImage == null) {
+        if (resultBuffer == null) {
             statusLabel.setText("⚠ No image to save.");
             return;
         }
         try {
-            String path = ImageIOUtil.saveImage(liveRenderingImage, filterComboBox.getValue());
+            String path = ImageIOUtil.saveImage(resultBuffer.getImage(), filterComboBox.getValue());
             statusLabel.setText("💾 Saved: " + path);
             log("Saved: " + path);
         } catch (Exception e) {
@@ -185,10 +193,10 @@ public class EnhancedImageProcessingController {
     /** Copy to clipboard */
     @FXML
     private void handleShareImage() {
-        if (liveRenderingImage == null) return;
+        if (resultBuffer == null) return;
 
         ClipboardContent content = new ClipboardContent();
-        content.putImage(SwingFXUtils.toFXImage(liveRenderingImage, null));
+        content.putImage(resultBuffer.getFxImage());
         Clipboard.getSystemClipboard().setContent(content);
 
         statusLabel.setText("📋 Copied to clipboard!");
@@ -199,26 +207,22 @@ public class EnhancedImageProcessingController {
     private void loadDefaultImage() {
         try (InputStream stream = getClass().getResourceAsStream("/test.jpg")) {
             if (stream != null) {
-                Image fxImage = new Image(stream);
-                currentImage = SwingFXUtils.fromFXImage(fxImage, null);
-                originalImageView.setImage(fxImage);
+                showSourceImage(ImageIO.read(stream));
             }
         } catch (Exception ignored) {}
     }
 
+    /** Copies a decoded image into a shared buffer once; processing and the view both use it */
+    private void showSourceImage(BufferedImage image) {
+        sourceBuffer = SharedImageBuffer.copyOf(image);
+        currentImage = sourceBuffer.getImage();
+        originalImageView.setImage(sourceBuffer.getFxImage());
+        sourceBuffer.flush();
+    }
+
     /** Filter switch */
     private ImageFilter getSelectedFilter(String f) {
-        return switch (f) {
-            case "Sepia" -> new SepiaFilter();
-            case "Blur" -> new BlurFilter();
-            case "Sharpen" -> new SharpenFilter();
-            case "Edge Detection" -> new EdgeDetectionFilter();
-            case "Brightness (+50)" -> new BrightnessFilter(50);
-            case "Brightness (-50)" -> new BrightnessFilter(-50);
-            case "Contrast (High)" -> new ContrastFilter(1.5);
-            case "Contrast (Low)" -> new ContrastFilter(0.5);
-            default -> new GreyScaleFilter();
-        };
+        return FilterFactory.create(f);
     }
 
     private void log(String msg) {
@@ -0,0 +1,128 @@
+package com.image.imageprocessing.ui;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.IntBuffer;
+
+/**
+ * One block of pixels seen both as an AWT {@link BufferedImage} and as a JavaFX
+ * {@link WritableImage}, so processing code can write results that the UI shows
+ * without conversion or copying.
+ *
+ * The backing {@code int[]} is the raster of a premultiplied ARGB image, wrapped in
+ * a {@link PixelBuffer} of the matching JavaFX format. Processors write into
+ * {@link #getImage()} directly (see {@code AsyncImageProcessor.processInto}) and
+ * record what changed with {@link #markDirty}, from any thread. {@link #flush()} runs
+ * on the FX thread and tells JavaFX to re-upload just that rectangle.
+ */
+public class SharedImageBuffer {
+
+    private final int width;
+    private final int height;
+    private final BufferedImage image;
+    private final PixelBuffer<IntBuffer> pixelBuffer;
+    private final WritableImage fxImage;
+
+    // Dirty region as [minX, maxX) x [minY, maxY); empty when minX >= maxX
+    private int dirtyMinX;
+    private int dirtyMinY;
+    private int dirtyMaxX;
+    private int dirtyMaxY;
+
+    public SharedImageBuffer(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Buffer dimensions must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.pixelBuffer = new PixelBuffer<>(width, height, IntBuffer.wrap(pixels),
+                PixelFormat.getIntArgbPreInstance());
+        this.fxImage = new WritableImage(pixelBuffer);
+        clearDirty();
+    }
+
+    /**
+     * Creates a buffer holding a copy of the image; the only conversion a loaded
+     * image goes through before it is shown and processed.
+     */
+    public static SharedImageBuffer copyOf(BufferedImage source) {
+        SharedImageBuffer buffer = new SharedImageBuffer(source.getWidth(), source.getHeight());
+        buffer.writeTile(source, 0, 0);
+        return buffer;
+    }
+
+    /**
+     * Copies an image in at the given position and marks it dirty. Safe to call from any
+     * thread. Meant for loading; processing output should be written in place instead.
+     */
+    public void writeTile(BufferedImage tile, int x, int y) {
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setComposite(AlphaComposite.Src);
+            graphics.drawImage(tile, x, y, null);
+        } finally {
+            graphics.dispose();
+        }
+        markDirty(x, y, tile.getWidth(), tile.getHeight());
+    }
+
+    public synchronized void markDirty(int x, int y, int regionWidth, int regionHeight) {
+        dirtyMinX = Math.max(0, Math.min(dirtyMinX, x));
+        dirtyMinY = Math.max(0, Math.min(dirtyMinY, y));
+        dirtyMaxX = Math.min(width, Math.max(dirtyMaxX, x + regionWidth));
+        dirtyMaxY = Math.min(height, Math.max(dirtyMaxY, y + regionHeight));
+    }
+
+    /**
+     * Pushes the dirty region to the JavaFX image. Must be called on the FX thread.
+     */
+    public void flush() {
+        Rectangle2D region;
+        synchronized (this) {
+            if (dirtyMinX >= dirtyMaxX || dirtyMinY >= dirtyMaxY) {
+                return;
+            }
+            region = new Rectangle2D(dirtyMinX, dirtyMinY, dirtyMaxX - dirtyMinX, dirtyMaxY - dirtyMinY);
+            clearDirty();
+        }
+        pixelBuffer.updateBuffer(buffer -> region);
+    }
+
+    private void clearDirty() {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = Integer.MIN_VALUE;
+        dirtyMaxY = Integer.MIN_VALUE;
+    }
+
+    /**
+     * The AWT view, for processing, saving and encoding.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * The JavaFX view, for image views and the clipboard.
+     */
+    public WritableImage getFxImage() {
+        return fxImage;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
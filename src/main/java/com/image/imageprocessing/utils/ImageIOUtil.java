@@ -1,14 +1,33 @@
 package com.image.imageprocessing.utils;
 
+import com.image.imageprocessing.transform.PyramidDownscaler;
+
 import javax.imageio.ImageIO;
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
 
 /**
  * Utility class for image I/O operations.
@@ -18,6 +37,7 @@ public class ImageIOUtil {
 
     private static final String OUTPUT_DIRECTORY = "output";
     private static final String DEFAULT_FORMAT = "png";
+    private static final int THUMBNAIL_TILE_SIZE = 64;
     private static final DateTimeFormatter TIMESTAMP_FORMATTER =
             DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
 
@@ -49,6 +69,49 @@ public class ImageIOUtil {
 
         String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
         String fileName = String.format("%s_%s.%s", filterName.toLowerCase(), timestamp, DEFAULT_FORMAT);
+        return writeToOutputDirectory(image, fileName);
+    }
+
+    /**
+     * Saves a processed image plus downscaled thumbnails in one job.
+     * All thumbnails are produced from a single pass over the full-size image
+     * and share its timestamp, e.g. {@code blur_20251117_214026_320x240.png}.
+     *
+     * @param image The full-size image to save
+     * @param filterName The name of the filter applied
+     * @param thumbnailSizes The exact thumbnail sizes to produce, each at most once
+     * @return The saved paths, full-size image first, then thumbnails in request order
+     * @throws IOException if saving fails or thumbnail generation is interrupted
+     * @throws IllegalArgumentException if a size is requested twice; nothing is written then
+     */
+    public static List<String> saveImageWithThumbnails(BufferedImage image, String filterName,
+                                                       List<Dimension> thumbnailSizes) throws IOException {
+        ensureOutputDirectoryExists();
+
+        Map<Dimension, BufferedImage> thumbnails;
+        try {
+            thumbnails = new PyramidDownscaler(THUMBNAIL_TILE_SIZE).downscale(image, thumbnailSizes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Thumbnail generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Thumbnail generation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
+        String baseName = String.format("%s_%s", filterName.toLowerCase(), timestamp);
+
+        List<String> paths = new ArrayList<>(thumbnails.size() + 1);
+        paths.add(writeToOutputDirectory(image, baseName + "." + DEFAULT_FORMAT));
+        for (Map.Entry<Dimension, BufferedImage> entry : thumbnails.entrySet()) {
+            Dimension size = entry.getKey();
+            String fileName = String.format("%s_%dx%d.%s", baseName, size.width, size.height, DEFAULT_FORMAT);
+            paths.add(writeToOutputDirectory(entry.getValue(), fileName));
+        }
+        return paths;
+    }
+
+    private static String writeToOutputDirectory(BufferedImage image, String fileName) throws IOException {
         Path outputPath = Paths.get(OUTPUT_DIRECTORY, fileName);
 
         File outputFile = outputPath.toFile();
@@ -75,6 +138,111 @@ public class ImageIOUtil {
         ImageIO.write(image, format, outputFile);
     }
 
+    /**
+     * Writes an image so readers of the target path never see a partial file.
+     * The image is encoded to a hidden temp file in the same directory, forced to disk
+     * and then renamed over the target, atomically where the file system supports it.
+     *
+     * @param image The image to save
+     * @param target The final destination; its extension selects the format
+     * @throws IOException if encoding or the rename fails
+     */
+    public static void saveImageAtomically(BufferedImage image, Path target) throws IOException {
+        String format = getFileExtension(target.getFileName().toString());
+        String writerFormat = format.isEmpty() ? DEFAULT_FORMAT : format;
+
+        replaceAtomically(target, out -> {
+            if (!ImageIO.write(image, writerFormat, out)) {
+                throw new IOException("No image writer for format: " + writerFormat);
+            }
+        });
+    }
+
+    /**
+     * Fills a fresh temp file next to the target, forces it to disk so a crash after the
+     * rename cannot leave an empty or torn file, and renames it over the target. The temp
+     * file is created with the default permissions, so the result is as readable as any
+     * other file the process writes.
+     */
+    private static void replaceAtomically(Path target, ContentWriter writer) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        Path temp = directory.resolve("." + target.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+                writer.write(out);
+                out.flush();
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Copies a file with the same guarantee as {@link #saveImageAtomically}: readers of
+     * the target see either the old file or the complete copy.
+     */
+    public static void copyAtomically(Path source, Path target) throws IOException {
+        replaceAtomically(target, out -> Files.copy(source, out));
+    }
+
+    /**
+     * CRC32C of a file's bytes, for checking that an output is still the one recorded.
+     */
+    public static long checksum(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Output file name for an input run through a filter: the full input name, extension
+     * included, then the filter slug, e.g. {@code cat.jpg_brightness-m50.png}. Keeping the
+     * extension stops {@code cat.png} and {@code cat.jpg} sharing an output, and signs
+     * survive in the slug as {@code p} and {@code m}, so every filter gets its own name.
+     */
+    public static String filterOutputFileName(String inputFileName, String filterName) {
+        String filterSuffix = filterName.toLowerCase()
+                .replaceAll("\\+(?=\\d)", "p")
+                .replaceAll("-(?=\\d)", "m")
+                .replaceAll("[^a-z0-9]+", "-")
+                .replaceAll("(^-|-$)", "");
+        return inputFileName + "_" + filterSuffix + "." + DEFAULT_FORMAT;
+    }
+
+    /**
+     * Name of the output subdirectory for one of several input directories: its own name
+     * plus a short hash of its absolute path, e.g. {@code incoming-3f2a9c01}, so that
+     * {@code a/incoming} and {@code b/incoming} stay apart.
+     */
+    public static String inputRootDirectoryName(Path inputDirectory) {
+        Path absolute = inputDirectory.toAbsolutePath().normalize();
+        Path name = absolute.getFileName();
+        CRC32 crc = new CRC32();
+        crc.update(absolute.toString().getBytes(StandardCharsets.UTF_8));
+        return (name != null ? name + "-" : "") + String.format("%08x", crc.getValue());
+    }
+
     /**
      * Ensures the output directory exists, creates it if necessary.
      */
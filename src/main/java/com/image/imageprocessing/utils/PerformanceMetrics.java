@@ -1,5 +1,7 @@
 package com.image.imageprocessing.utils;
 
+import com.image.imageprocessing.raster.OffHeapImage;
+
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -13,6 +15,7 @@ public class PerformanceMetrics {
     private int totalTiles;
     private AtomicInteger processedTiles;
     private long memoryUsed;
+    private long offHeapMemoryUsed;
     private String filterName;
 
     public PerformanceMetrics() {
@@ -25,18 +28,24 @@ public class PerformanceMetrics {
         totalTiles = 0;
         processedTiles.set(0);
         memoryUsed = 0;
+        offHeapMemoryUsed = 0;
         filterName = null;
     }
 
     public void captureMemoryUsage() {
         Runtime runtime = Runtime.getRuntime();
         this.memoryUsed = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+        this.offHeapMemoryUsed = OffHeapImage.getAllocatedBytes() / (1024 * 1024);
     }
 
     public void incrementProcessedTiles() {
         processedTiles.incrementAndGet();
     }
 
+    public void addProcessedTiles(int count) {
+        processedTiles.addAndGet(count);
+    }
+
     public long getProcessingTime() {
         return processingTime;
     }
@@ -69,6 +78,31 @@ public class PerformanceMetrics {
         return memoryUsed;
     }
 
+    public void setMemoryUsed(long memoryUsed) {
+        this.memoryUsed = memoryUsed;
+    }
+
+    public long getOffHeapMemoryUsed() {
+        return offHeapMemoryUsed;
+    }
+
+    public void setOffHeapMemoryUsed(long offHeapMemoryUsed) {
+        this.offHeapMemoryUsed = offHeapMemoryUsed;
+    }
+
+    /**
+     * Adds work that ran in parallel with this run elsewhere, e.g. in a worker process.
+     * Tiles, threads and memory are summed; processing time is left to the caller,
+     * who knows the wall-clock span.
+     */
+    public void merge(PerformanceMetrics other) {
+        totalTiles += other.totalTiles;
+        processedTiles.addAndGet(other.getProcessedTiles());
+        threadsUsed += other.threadsUsed;
+        memoryUsed += other.memoryUsed;
+        offHeapMemoryUsed += other.offHeapMemoryUsed;
+    }
+
     public String getFilterName() {
         return filterName;
     }
@@ -85,18 +119,20 @@ public class PerformanceMetrics {
             "  Processing Time: %d ms\n" +
             "  Tiles Processed: %d/%d\n" +
             "  Threads Used: %d\n" +
-            "  Memory Usage: %d MB",
+            "  Memory Usage: %d MB\n" +
+            "  Off-Heap Memory: %d MB",
             filterName != null ? filterName : "N/A",
             processingTime,
             processedTiles.get(),
             totalTiles,
             threadsUsed,
-            memoryUsed
+            memoryUsed,
+            offHeapMemoryUsed
         );
     }
 
     public String toShortString() {
-        return String.format("%d ms | %d tiles | %d MB",
-            processingTime, processedTiles.get(), memoryUsed);
+        return String.format("%d ms | %d tiles | %d MB heap | %d MB off-heap",
+            processingTime, processedTiles.get(), memoryUsed, offHeapMemoryUsed);
     }
 }
@@ -9,9 +9,18 @@ module com.image.imageprocessing {
     opens com.image.imageprocessing.ui to javafx.fxml;
 
     exports com.image.imageprocessing;
+    exports com.image.imageprocessing.batch;
+    exports com.image.imageprocessing.cluster;
+    exports com.image.imageprocessing.color;
     exports com.image.imageprocessing.concurrency;
+    exports com.image.imageprocessing.daemon;
+    exports com.image.imageprocessing.dedup;
     exports com.image.imageprocessing.filter;
     exports com.image.imageprocessing.processor;
+    exports com.image.imageprocessing.raster;
+    exports com.image.imageprocessing.sequence;
+    exports com.image.imageprocessing.stats;
+    exports com.image.imageprocessing.transform;
     exports com.image.imageprocessing.ui;
     exports com.image.imageprocessing.utils;
 }
@@ -0,0 +1,86 @@
+package com.image.imageprocessing.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchJournalTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void tornTailIsDroppedAndAppendingContinues() throws IOException {
+        Path path = root.resolve("journal");
+        try (BatchJournal journal = open(path)) {
+            journal.append(entry("a"));
+            journal.append(entry("b"));
+        }
+        // A crash in the middle of a line
+        Files.writeString(path, "DONE\t17\tdeadbeef\tGray", StandardOpenOption.APPEND);
+
+        try (BatchJournal journal = open(path)) {
+            assertEquals(List.of(entry("a"), entry("b")), journal.getRecoveredEntries());
+            assertTrue(journal.getUnverifiedEntries().isEmpty());
+            journal.append(entry("c"));
+        }
+        try (BatchJournal journal = open(path)) {
+            assertEquals(List.of(entry("a"), entry("b"), entry("c")), journal.getRecoveredEntries());
+        }
+    }
+
+    @Test
+    void crashedSessionStaysUnverifiedUntilChecked() throws IOException {
+        Path path = root.resolve("journal");
+        try (BatchJournal journal = open(path)) {
+            journal.append(entry("a"));
+        }
+        try (BatchJournal journal = open(path)) {
+            journal.append(entry("b"));
+        }
+        crash(path);
+
+        try (BatchJournal journal = open(path)) {
+            assertEquals(List.of(entry("b")), journal.getUnverifiedEntries());
+            // Closes cleanly without looking at b
+            journal.append(entry("c"));
+        }
+        try (BatchJournal journal = open(path)) {
+            assertEquals(List.of(entry("b")), journal.getUnverifiedEntries());
+            journal.markVerified(entry("b"));
+        }
+        try (BatchJournal journal = open(path)) {
+            assertTrue(journal.getUnverifiedEntries().isEmpty());
+            assertEquals(List.of(entry("a"), entry("b"), entry("c")), journal.getRecoveredEntries());
+        }
+    }
+
+    /**
+     * Removes the final CLOSE line, as if the last session had died after its last sync.
+     */
+    static void crash(Path journal) throws IOException {
+        String content = Files.readString(journal, StandardCharsets.UTF_8);
+        assertTrue(content.endsWith("CLOSE\n"));
+        Files.writeString(journal, content.substring(0, content.length() - "CLOSE\n".length()), StandardCharsets.UTF_8);
+    }
+
+    private static BatchJournal open(Path path) throws IOException {
+        return BatchJournal.open(path, 64, Duration.ofSeconds(1));
+    }
+
+    private static BatchJournal.Entry entry(String name) {
+        return new BatchJournal.Entry(1000, "hash-" + name, "Grayscale", Paths.get("/out/" + name + ".png"),
+                10, 20, Paths.get("/in/" + name + ".png"), 30, 40);
+    }
+}
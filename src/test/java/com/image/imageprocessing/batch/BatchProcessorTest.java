@@ -0,0 +1,64 @@
+package com.image.imageprocessing.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchProcessorTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void crashedOutputsAreCheckedEvenAfterAnotherCleanRun() throws Exception {
+        Path input = Files.createDirectories(root.resolve("in"));
+        Path output = root.resolve("out");
+        Path journal = root.resolve("journal");
+        for (int i = 0; i < 4; i++) {
+            BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < 30; y++) {
+                for (int x = 0; x < 40; x++) {
+                    image.setRGB(x, y, (i * 60) << 16 | x << 8 | y);
+                }
+            }
+            ImageIO.write(image, "png", input.resolve("photo" + i + ".png").toFile());
+        }
+
+        assertEquals(4, run(output, journal, "Grayscale", input).processed());
+        BatchJournalTest.crash(journal);
+        // A partial output: same size as recorded, different bytes
+        Path damaged = output.resolve("photo2.png_grayscale.png");
+        byte[] bytes = Files.readAllBytes(damaged);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(damaged, bytes);
+
+        // Another filter over part of the inputs closes cleanly without checking the crashed outputs
+        BatchProcessor.BatchResult other = run(output, journal, "Sepia", input.resolve("photo0.png"));
+        assertEquals(1, other.processed());
+
+        // Plus a torn line from a crash mid-append
+        Files.writeString(journal, "DONE\t1\tabc", StandardOpenOption.APPEND);
+        BatchProcessor.BatchResult resumed = run(output, journal, "Grayscale", input);
+        assertEquals(1, resumed.processed());
+        assertEquals(3, resumed.skipped());
+        assertEquals(0, resumed.failed());
+
+        BatchProcessor.BatchResult settled = run(output, journal, "Grayscale", input);
+        assertEquals(0, settled.processed());
+        assertEquals(4, settled.skipped());
+    }
+
+    private static BatchProcessor.BatchResult run(Path output, Path journal, String filter, Path... inputs)
+            throws IOException, InterruptedException {
+        return new BatchProcessor(output, journal, filter, 2, 64).run(List.of(inputs));
+    }
+}
@@ -0,0 +1,150 @@
+package com.image.imageprocessing.cluster;
+
+import com.image.imageprocessing.concurrency.AsyncImageProcessor;
+import com.image.imageprocessing.filter.FilterFactory;
+import com.image.imageprocessing.filter.ImageFilter;
+import com.image.imageprocessing.utils.PerformanceMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterCoordinatorTest {
+
+    private static final String FILTER = "Median";
+    // Small bands give every image several tasks, so a lost worker always holds some
+    private static final int BAND_PIXELS = 40_000;
+
+    @Test
+    @Timeout(value = 3, unit = TimeUnit.MINUTES)
+    void killedWorkerTasksRerunElsewhere() throws Exception {
+        List<BufferedImage> images = images(16, 320, 240);
+
+        try (ClusterCoordinator coordinator = new ClusterCoordinator(InetAddress.getLoopbackAddress(), 0, BAND_PIXELS)) {
+            List<Process> workers = coordinator.spawnLocalWorkers(3, 1);
+            awaitWorkers(coordinator, 3);
+
+            CompletableFuture<List<BufferedImage>> results = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return coordinator.processAll(images, FILTER, new PerformanceMetrics());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            // Once every worker holds tasks, the victim is sure to leave some behind
+            while (coordinator.getBusyWorkerCount() < 3 && !results.isDone()) {
+                Thread.sleep(5);
+            }
+            workers.get(0).destroyForcibly();
+
+            assertMatchSingleProcess(images, results.get());
+            assertTrue(coordinator.getRetries() > 0, "no task was rerun");
+        }
+    }
+
+    @Test
+    @Timeout(value = 3, unit = TimeUnit.MINUTES)
+    void hungWorkerIsDroppedAfterTaskTimeout() throws Exception {
+        List<BufferedImage> images = images(4, 320, 240);
+
+        try (ClusterCoordinator coordinator = new ClusterCoordinator(
+                InetAddress.getLoopbackAddress(), 0, BAND_PIXELS, Duration.ofSeconds(2))) {
+            // Joins like a worker, then never answers
+            try (Socket hung = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(hung.getOutputStream()));
+                ClusterProtocol.writeHello(out, 1);
+                out.flush();
+                awaitWorkers(coordinator, 1);
+
+                coordinator.spawnLocalWorkers(1, 1);
+                List<BufferedImage> results = coordinator.processAll(images, FILTER, new PerformanceMetrics());
+
+                assertMatchSingleProcess(images, results);
+                assertTrue(coordinator.getRetries() > 0, "no task was rerun");
+            }
+        }
+    }
+
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.MINUTES)
+    void closeDoesNotWaitOnWorkerThatStoppedReading() throws Exception {
+        // One large band each, far more than the socket buffers hold
+        List<BufferedImage> images = images(2, 2000, 2000);
+
+        ClusterCoordinator coordinator = new ClusterCoordinator();
+        try (Socket stuck = new Socket()) {
+            stuck.setReceiveBufferSize(4096);
+            stuck.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), coordinator.getPort()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stuck.getOutputStream()));
+            ClusterProtocol.writeHello(out, 1);
+            out.flush();
+            awaitWorkers(coordinator, 1);
+
+            Thread batch = Thread.ofVirtual().start(() -> {
+                try {
+                    coordinator.processAll(images, FILTER, new PerformanceMetrics());
+                } catch (Exception e) {
+                    // Expected once the coordinator closes
+                }
+            });
+            while (coordinator.getBusyWorkerCount() == 0) {
+                Thread.sleep(5);
+            }
+
+            // The sender is now blocked mid-band holding the stream lock
+            long start = System.nanoTime();
+            coordinator.close();
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10), "close() waited on the stuck worker");
+            batch.join();
+        }
+    }
+
+    private static void assertMatchSingleProcess(List<BufferedImage> images, List<BufferedImage> results)
+            throws Exception {
+        AsyncImageProcessor processor = new AsyncImageProcessor(ImageFilter.DEFAULT_TILE_SIZE);
+        for (int i = 0; i < images.size(); i++) {
+            BufferedImage expected = processor.processWithStructuredConcurrency(
+                    images.get(i), FilterFactory.createStrict(FILTER), new PerformanceMetrics(), null);
+            assertArrayEquals(pixels(expected), pixels(results.get(i)), "image " + i);
+        }
+    }
+
+    private static void awaitWorkers(ClusterCoordinator coordinator, int count) throws InterruptedException {
+        while (coordinator.getWorkerCount() < count) {
+            Thread.sleep(50);
+        }
+    }
+
+    private static List<BufferedImage> images(int count, int width, int height) {
+        Random random = new Random(40);
+        List<BufferedImage> images = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    image.setRGB(x, y, random.nextInt(0x1000000));
+                }
+            }
+            images.add(image);
+        }
+        return images;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
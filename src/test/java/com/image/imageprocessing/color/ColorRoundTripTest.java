@@ -0,0 +1,64 @@
+package com.image.imageprocessing.color;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every 24-bit colour converted there and back.
+ */
+class ColorRoundTripTest {
+
+    private static final int COLOURS = 1 << 24;
+
+    @Test
+    void hsvIsOffByAtMostOneLevel() {
+        int worst = 0;
+        for (int rgb = 0; rgb < COLOURS; rgb++) {
+            worst = Math.max(worst, channelError(rgb, Hsv.toRgb(Hsv.fromRgb(rgb))));
+        }
+        assertTrue(worst <= 1, "HSV round trip is off by " + worst);
+    }
+
+    @Test
+    void yCbCrIsOffByAtMostOneLevel() {
+        int worst = 0;
+        for (int rgb = 0; rgb < COLOURS; rgb++) {
+            worst = Math.max(worst, channelError(rgb, YCbCr.toRgb(YCbCr.fromRgb(rgb))));
+        }
+        assertTrue(worst <= 1, "YCbCr round trip is off by " + worst);
+    }
+
+    @Test
+    void labIsExact() {
+        float[] lab = new float[3];
+        int worst = 0;
+        for (int rgb = 0; rgb < COLOURS; rgb++) {
+            Lab.fromRgb(rgb, lab);
+            worst = Math.max(worst, channelError(rgb, Lab.toRgb(lab[0], lab[1], lab[2])));
+        }
+        assertEquals(0, worst, "Lab round trip is off");
+    }
+
+    @Test
+    void greysHaveNoHueOrChroma() {
+        float[] lab = new float[3];
+        for (int level = 0; level < 256; level++) {
+            int grey = (level << 16) | (level << 8) | level;
+            assertEquals(level, Hsv.fromRgb(grey));
+            assertEquals(YCbCr.pack(level, 128, 128), YCbCr.fromRgb(grey));
+            Lab.fromRgb(grey, lab);
+            assertEquals(0, lab[1], 0.05f);
+            assertEquals(0, lab[2], 0.05f);
+        }
+    }
+
+    private static int channelError(int expected, int actual) {
+        int worst = 0;
+        for (int shift = 0; shift < 24; shift += 8) {
+            worst = Math.max(worst, Math.abs(((expected >> shift) & 0xFF) - ((actual >> shift) & 0xFF)));
+        }
+        return worst;
+    }
+}
@@ -0,0 +1,77 @@
+package com.image.imageprocessing.concurrency;
+
+import com.image.imageprocessing.filter.FilterFactory;
+import com.image.imageprocessing.filter.ImageFilter;
+import com.image.imageprocessing.stats.ImageStatistics;
+import com.image.imageprocessing.stats.StatisticsCollector;
+import com.image.imageprocessing.transform.GeometricTransform;
+import com.image.imageprocessing.utils.PerformanceMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsyncImageProcessorTest {
+
+    @Test
+    void processIntoMatchesAllocatedResultForEveryFilter() throws Exception {
+        BufferedImage image = noise(173, 121);
+        AsyncImageProcessor processor = new AsyncImageProcessor(32);
+
+        for (String name : FilterFactory.getFilterNames()) {
+            ImageFilter filter = FilterFactory.createStrict(name);
+            BufferedImage expected = processor.processWithStructuredConcurrency(
+                    image, filter, new PerformanceMetrics(), null);
+
+            int width = image.getWidth();
+            int height = image.getHeight();
+            if (filter instanceof GeometricTransform transform) {
+                GeometricTransform.Mapping mapping = transform.mappingFor(width, height);
+                width = mapping.width();
+                height = mapping.height();
+            }
+            // The UI's shared buffers are premultiplied ARGB
+            BufferedImage destination = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            processor.processInto(image, filter, destination, new PerformanceMetrics(), null);
+
+            assertArrayEquals(pixels(expected), pixels(destination), name);
+        }
+    }
+
+    @Test
+    void fusedStatisticsMatchSeparatePassForEveryFilter() throws Exception {
+        BufferedImage image = noise(173, 121);
+        AsyncImageProcessor processor = new AsyncImageProcessor(32);
+        StatisticsCollector collector = new StatisticsCollector(32);
+
+        for (String name : FilterFactory.getFilterNames()) {
+            AsyncImageProcessor.ProcessedImage processed = processor.processWithStatistics(
+                    image, FilterFactory.createStrict(name), new PerformanceMetrics(), null);
+            ImageStatistics expected = collector.compute(processed.image());
+
+            assertEquals(expected.getPixelCount(), processed.statistics().getPixelCount(), name);
+            for (ImageStatistics.Channel channel : ImageStatistics.Channel.values()) {
+                assertArrayEquals(expected.getHistogram(channel), processed.statistics().getHistogram(channel),
+                        name + " " + channel);
+            }
+        }
+    }
+
+    private static BufferedImage noise(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(38);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000) & 0xF0F0F0 | (x * 255 / width) << 16);
+            }
+        }
+        return image;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
@@ -0,0 +1,228 @@
+package com.image.imageprocessing.daemon;
+
+import com.image.imageprocessing.concurrency.AsyncImageProcessor;
+import com.image.imageprocessing.filter.FilterFactory;
+import com.image.imageprocessing.filter.ImageFilter;
+import com.image.imageprocessing.utils.PerformanceMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WatchFolderDaemonTest {
+
+    private static final String FILTER = "Grayscale";
+    // Larger than the test images, so each image is one filter call
+    private static final int TILE_SIZE = 1024;
+
+    @TempDir
+    Path root;
+
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.MINUTES)
+    void halfWrittenFileWaitsUntilItSettles() throws Exception {
+        Path input = Files.createDirectories(root.resolve("in"));
+        Path output = root.resolve("out");
+        byte[] png = png(image(0x3060C0));
+
+        try (WatchFolderDaemon daemon = daemon(input, output, FilterFactory.createStrict(FILTER), 2, Duration.ofMillis(700))) {
+            daemon.start();
+            // Grow the file in steps shorter than the quiet period, as a slow copy would
+            Path file = input.resolve("slow.png");
+            for (int part = 1; part < 4; part++) {
+                Files.write(file, Arrays.copyOf(png, png.length * part / 4));
+                Thread.sleep(150);
+            }
+            Files.write(file, png);
+
+            await(() -> daemon.getProcessedCount() == 1);
+            assertEquals(0, daemon.getFailedCount());
+            assertNotNull(ImageIO.read(output.resolve("slow.png_grayscale.png").toFile()));
+        }
+    }
+
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.MINUTES)
+    void neverFiltersMoreThanMaxInFlightImages() throws Exception {
+        Path input = Files.createDirectories(root.resolve("in"));
+        Path output = root.resolve("out");
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ImageFilter grayscale = FilterFactory.createStrict(FILTER);
+        ImageFilter slow = image -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+            return grayscale.filter(image);
+        };
+
+        for (int i = 0; i < 8; i++) {
+            Files.write(input.resolve("burst" + i + ".png"), png(image(0x101010 * (i + 1))));
+        }
+        try (WatchFolderDaemon daemon = daemon(input, output, slow, 2, Duration.ofMillis(100))) {
+            daemon.start();
+            await(() -> daemon.getProcessedCount() == 8);
+            assertEquals(2, peak.get());
+            assertEquals(0, daemon.getBacklog());
+        }
+    }
+
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.MINUTES)
+    void readersNeverSeePartialOutputs() throws Exception {
+        Path input = Files.createDirectories(root.resolve("in"));
+        Path output = root.resolve("out");
+        for (int i = 0; i < 6; i++) {
+            Files.write(input.resolve("photo" + i + ".png"), png(image(0x204080 + i)));
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger partial = new AtomicInteger();
+        Thread reader = Thread.ofVirtual().start(() -> {
+            while (!stop.get()) {
+                for (Path file : visibleFiles(output)) {
+                    try {
+                        BufferedImage image = ImageIO.read(file.toFile());
+                        if (image == null || image.getWidth() != 64) {
+                            partial.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        partial.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        try (WatchFolderDaemon daemon = daemon(input, output, FilterFactory.createStrict(FILTER), 3, Duration.ofMillis(100))) {
+            daemon.start();
+            await(() -> daemon.getProcessedCount() == 6);
+        } finally {
+            stop.set(true);
+            reader.join();
+        }
+
+        assertEquals(0, partial.get());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(output)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                assertTrue(!name.startsWith(".") && name.endsWith("_grayscale.png"), "leftover " + name);
+            }
+        }
+    }
+
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.MINUTES)
+    void fileRewrittenWhileProcessingIsProcessedAgain() throws Exception {
+        Path input = Files.createDirectories(root.resolve("in"));
+        Path output = root.resolve("out");
+        ImageFilter grayscale = FilterFactory.createStrict(FILTER);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ImageFilter held = image -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return grayscale.filter(image);
+        };
+
+        Path file = input.resolve("edited.png");
+        Files.write(file, png(image(0xFF0000)));
+        try (WatchFolderDaemon daemon = daemon(input, output, held, 2, Duration.ofMillis(100))) {
+            daemon.start();
+            assertTrue(started.await(30, TimeUnit.SECONDS));
+
+            BufferedImage edited = image(0x0000FF);
+            Files.write(file, png(edited));
+            Thread.sleep(300);
+            release.countDown();
+
+            await(() -> daemon.getProcessedCount() == 2);
+            BufferedImage result = ImageIO.read(output.resolve("edited.png_grayscale.png").toFile());
+            BufferedImage expected = new AsyncImageProcessor(TILE_SIZE).processWithStructuredConcurrency(
+                    ImageIO.read(file.toFile()), grayscale, new PerformanceMetrics(), null);
+            assertArrayEquals(pixels(expected), pixels(result));
+        }
+    }
+
+    @Test
+    void rejectsOutputDirectoryThatIsWatched() throws IOException {
+        Path input = Files.createDirectories(root.resolve("in"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> daemon(input, input, FilterFactory.createStrict(FILTER), 1, Duration.ofMillis(100)));
+        assertThrows(IllegalArgumentException.class,
+                () -> daemon(input, root.resolve("in/../in"), FilterFactory.createStrict(FILTER), 1, Duration.ofMillis(100)));
+    }
+
+    private static WatchFolderDaemon daemon(Path input, Path output, ImageFilter filter, int maxInFlight,
+                                            Duration quietPeriod) {
+        return new WatchFolderDaemon(List.of(input), output, FILTER, filter, maxInFlight, quietPeriod,
+                TILE_SIZE, null, null, 0);
+    }
+
+    private static List<Path> visibleFiles(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> !file.getFileName().toString().startsWith(".")).toList();
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static BufferedImage image(int rgb) {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 48; y++) {
+            for (int x = 0; x < 64; x++) {
+                image.setRGB(x, y, rgb ^ (x * 3 + y));
+            }
+        }
+        return image;
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,122 @@
+package com.image.imageprocessing.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsExactlyTheEntriesABruteForceScanFinds() throws IOException {
+        Random random = new Random(41);
+        Path output = output();
+        List<Long> stored = new ArrayList<>();
+        List<Long> queries = new ArrayList<>();
+
+        try (HashIndex index = HashIndex.open(dir.resolve("index"), PerceptualHash.PHASH)) {
+            for (int i = 0; i < 300; i++) {
+                long base = random.nextLong();
+                queries.add(base);
+                // Neighbours at every distance up to 10 bits, spread over the chunks
+                for (int flips = 0; flips <= 10; flips++) {
+                    long hash = flipBits(base, flips, random);
+                    stored.add(hash);
+                    index.add(hash, "Grayscale", output, 1, 1);
+                }
+            }
+
+            for (int radius : new int[] {0, 4, 8}) {
+                for (long query : queries) {
+                    Set<Long> expected = new HashSet<>();
+                    for (long hash : stored) {
+                        if (PerceptualHash.distance(query, hash) <= radius) {
+                            expected.add(hash);
+                        }
+                    }
+
+                    // A predicate that rejects everything sees every candidate, closest first
+                    List<Long> seen = new ArrayList<>();
+                    index.findNearest(query, radius, entry -> {
+                        seen.add(entry.hash());
+                        return false;
+                    });
+                    assertEquals(expected, new HashSet<>(seen), "radius " + radius);
+                    for (int i = 1; i < seen.size(); i++) {
+                        assertTrue(PerceptualHash.distance(query, seen.get(i - 1))
+                                <= PerceptualHash.distance(query, seen.get(i)), "not closest first");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void returnsTheClosestAcceptedEntry() throws IOException {
+        Path output = output();
+        long query = 0x0123_4567_89AB_CDEFL;
+        try (HashIndex index = HashIndex.open(dir.resolve("index"), PerceptualHash.PHASH)) {
+            index.add(query ^ 0b111, "Grayscale", output, 1, 1);
+            index.add(query ^ 0b1, "Blur", output, 1, 1);
+            index.add(query ^ 0b11, "Grayscale", output, 1, 1);
+
+            HashIndex.Entry nearest = index.findNearest(query, 4, entry -> entry.filterName().equals("Grayscale"))
+                    .orElseThrow();
+            assertEquals(query ^ 0b11, nearest.hash());
+        }
+    }
+
+    @Test
+    void dropsATornLastEntryOnReopen() throws IOException {
+        Path output = output();
+        Path file = dir.resolve("index");
+        try (HashIndex index = HashIndex.open(file, PerceptualHash.PHASH)) {
+            for (long hash = 1; hash <= 3; hash++) {
+                index.add(hash << 20, "Grayscale", output, 1, 1);
+            }
+        }
+        // A crash partway through the fourth entry's hash
+        Files.write(file, new byte[] {0x12, 0x34, 0x56}, StandardOpenOption.APPEND);
+
+        try (HashIndex index = HashIndex.open(file, PerceptualHash.PHASH)) {
+            assertEquals(3, index.size());
+            index.add(4L << 20, "Grayscale", output, 1, 1);
+        }
+        // The torn bytes were cut off, so the entry added after them reads back intact
+        try (HashIndex index = HashIndex.open(file, PerceptualHash.PHASH)) {
+            assertEquals(4, index.size());
+            for (long hash = 1; hash <= 4; hash++) {
+                assertTrue(index.findReusableResult(hash << 20, "Grayscale", 0, 1, 1).isPresent(), "entry " + hash);
+            }
+        }
+    }
+
+    private Path output() throws IOException {
+        return Files.write(dir.resolve("out.png"), new byte[] {1, 2, 3});
+    }
+
+    private static long flipBits(long hash, int flips, Random random) {
+        Set<Integer> bits = new HashSet<>();
+        while (bits.size() < flips) {
+            bits.add(random.nextInt(Long.SIZE));
+        }
+        for (int bit : bits) {
+            hash ^= 1L << bit;
+        }
+        return hash;
+    }
+}
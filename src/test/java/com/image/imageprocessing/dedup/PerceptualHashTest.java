@@ -0,0 +1,51 @@
+package com.image.imageprocessing.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerceptualHashTest {
+
+    @Test
+    void fingerprintOfSubsampledProxyMatchesFullDecode() throws IOException {
+        // Smooth gradients with a few blobs, large enough to be subsampled 4x
+        BufferedImage image = new BufferedImage(1200, 1000, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int r = x * 255 / image.getWidth();
+                int g = y * 255 / image.getHeight();
+                int b = (int) (127 + 120 * Math.sin(x / 90.0) * Math.cos(y / 70.0));
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+
+        for (PerceptualHash algorithm : PerceptualHash.values()) {
+            PerceptualHash.Fingerprint fingerprint;
+            try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(png.toByteArray()))) {
+                fingerprint = algorithm.fingerprint(in);
+            }
+            assertEquals(1200, fingerprint.width());
+            assertEquals(1000, fingerprint.height());
+            int distance = PerceptualHash.distance(algorithm.hash(image), fingerprint.hash());
+            assertTrue(distance <= 4, algorithm + " proxy hash is " + distance + " bits off");
+        }
+    }
+
+    @Test
+    void fingerprintRejectsUnknownFormats() throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(new byte[64]))) {
+            assertThrows(IOException.class, () -> PerceptualHash.DHASH.fingerprint(in));
+        }
+    }
+}
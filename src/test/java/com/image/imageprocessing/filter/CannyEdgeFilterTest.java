@@ -0,0 +1,78 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.concurrency.AsyncImageProcessor;
+import com.image.imageprocessing.utils.PerformanceMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CannyEdgeFilterTest {
+
+    private static final int WIDTH = 301;
+    private static final int HEIGHT = 217;
+
+    @Test
+    void outputDoesNotDependOnTileSize() throws Exception {
+        BufferedImage image = edgesAcrossManyTiles();
+        int[] wholeImage = cannyPixels(image, Math.max(WIDTH, HEIGHT));
+
+        assertTrue(countEdges(wholeImage) > 1000, "test image should produce plenty of edges");
+        for (int tileSize : new int[] {7, 13, ImageFilter.DEFAULT_TILE_SIZE}) {
+            assertArrayEquals(wholeImage, cannyPixels(image, tileSize), "tile size " + tileSize);
+        }
+    }
+
+    /**
+     * Long diagonals, circles and a faint ramp under noise, so that edges and the weak
+     * chains joining them to strong pixels cross tile borders in every direction.
+     */
+    private static BufferedImage edgesAcrossManyTiles() {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(34);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int gray = Math.max(0, Math.min(255, 60 + x / 4 + (int) (random.nextGaussian() * 6)));
+                image.setRGB(x, y, gray * 0x010101);
+            }
+        }
+
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setStroke(new BasicStroke(3));
+        g.setColor(Color.WHITE);
+        g.drawLine(0, 0, WIDTH - 1, HEIGHT - 1);
+        g.drawLine(WIDTH - 1, 0, 0, HEIGHT - 1);
+        g.setColor(new Color(150, 150, 150));
+        for (int r = 20; r < 200; r += 37) {
+            g.drawOval(WIDTH / 2 - r, HEIGHT / 2 - r, 2 * r, 2 * r);
+        }
+        g.setColor(new Color(110, 110, 110));
+        g.drawLine(5, HEIGHT / 3, WIDTH - 5, HEIGHT / 3 + 11);
+        g.dispose();
+        return image;
+    }
+
+    private static int[] cannyPixels(BufferedImage image, int tileSize) throws Exception {
+        BufferedImage result = new AsyncImageProcessor(tileSize)
+                .processWithStructuredConcurrency(image, new CannyEdgeFilter(), new PerformanceMetrics(), null);
+        return result.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+    }
+
+    private static int countEdges(int[] pixels) {
+        int count = 0;
+        for (int pixel : pixels) {
+            if ((pixel & 0xFFFFFF) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,92 @@
+package com.image.imageprocessing.filter;
+
+import com.image.imageprocessing.color.Lab;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColorAdjustFilterTest {
+
+    @Test
+    void neutralAdjustmentKeepsEveryPixelAndAlpha() {
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage result = new ColorAdjustFilter(0, 0, 0, 0).filter(image);
+
+        assertArrayEquals(pixels(image), pixels(result));
+    }
+
+    @Test
+    void fullTurnOfHueIsAtMostOneLevelOff() {
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_RGB);
+        int[] before = pixels(image);
+        int[] after = pixels(ColorAdjustFilter.hue(360).filter(image));
+
+        for (int i = 0; i < before.length; i++) {
+            for (int shift = 0; shift < 24; shift += 8) {
+                int difference = Math.abs(((before[i] >> shift) & 0xFF) - ((after[i] >> shift) & 0xFF));
+                assertTrue(difference <= 1, "pixel " + i + " is off by " + difference);
+            }
+        }
+    }
+
+    @Test
+    void fullDesaturationLeavesGreysOfTheSameLightness() {
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_RGB);
+        int[] before = pixels(image);
+        int[] after = pixels(ColorAdjustFilter.saturation(-1).filter(image));
+
+        float[] original = new float[3];
+        float[] grey = new float[3];
+        for (int i = 0; i < before.length; i++) {
+            Lab.fromRgb(before[i], original);
+            Lab.fromRgb(after[i], grey);
+            assertEquals(0, grey[1], 1f, "a* of pixel " + i);
+            assertEquals(0, grey[2], 1f, "b* of pixel " + i);
+            assertEquals(original[0], grey[0], 0.5f, "L* of pixel " + i);
+        }
+    }
+
+    @Test
+    void lightnessShiftsLStar() {
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0x607080);
+        float[] before = new float[3];
+        float[] after = new float[3];
+        Lab.fromRgb(image.getRGB(0, 0), before);
+
+        Lab.fromRgb(ColorAdjustFilter.lightness(20).filter(image).getRGB(0, 0), after);
+
+        assertEquals(before[0] + 20, after[0], 0.5f);
+        assertEquals(before[1], after[1], 1f);
+        assertEquals(before[2], after[2], 1f);
+    }
+
+    @Test
+    void rejectsOutOfRangeParameters() {
+        assertThrows(IllegalArgumentException.class, () -> ColorAdjustFilter.saturation(-1.5));
+        assertThrows(IllegalArgumentException.class, () -> ColorAdjustFilter.vibrance(-2));
+        assertThrows(IllegalArgumentException.class, () -> ColorAdjustFilter.lightness(101));
+    }
+
+    private static BufferedImage randomImage(int type) {
+        BufferedImage image = new BufferedImage(64, 48, type);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
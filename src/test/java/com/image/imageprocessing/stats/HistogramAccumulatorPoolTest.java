@@ -0,0 +1,42 @@
+package com.image.imageprocessing.stats;
+
+import com.image.imageprocessing.concurrency.TileGrid;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramAccumulatorPoolTest {
+
+    @Test
+    void keepsOneAccumulatorPerWorkerNotPerTile() throws Exception {
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(27);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+
+        TileGrid grid = new TileGrid(image.getWidth(), image.getHeight(), 20, new Semaphore(2));
+        HistogramAccumulatorPool pool = new HistogramAccumulatorPool();
+        grid.forEachTile(tile -> pool.accumulate(
+                image.getSubimage(tile.x(), tile.y(), tile.width(), tile.height())));
+
+        assertTrue(pool.size() <= 2, pool.size() + " accumulators for " + grid.getTileCount() + " tiles");
+
+        HistogramAccumulator whole = new HistogramAccumulator();
+        whole.accumulate(image);
+        ImageStatistics expected = whole.toStatistics();
+        ImageStatistics actual = pool.toStatistics();
+        assertEquals(expected.getPixelCount(), actual.getPixelCount());
+        for (ImageStatistics.Channel channel : ImageStatistics.Channel.values()) {
+            assertArrayEquals(expected.getHistogram(channel), actual.getHistogram(channel), channel.toString());
+        }
+    }
+}
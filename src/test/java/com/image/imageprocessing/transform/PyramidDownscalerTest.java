@@ -0,0 +1,87 @@
+package com.image.imageprocessing.transform;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PyramidDownscalerTest {
+
+    @Test
+    void transparentColourDoesNotBleedIntoEdges() throws Exception {
+        // Opaque blue stripes on fully transparent red: every thumbnail pixel that shows must be pure blue
+        BufferedImage image = new BufferedImage(240, 180, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, (x / 5) % 3 == 0 ? 0xFF0000FF : 0x00FF0000);
+            }
+        }
+
+        List<Dimension> sizes = List.of(new Dimension(120, 90), new Dimension(50, 37), new Dimension(17, 13));
+        Map<Dimension, BufferedImage> thumbnails = new PyramidDownscaler(16).downscale(image, sizes);
+
+        for (Dimension size : sizes) {
+            BufferedImage thumbnail = thumbnails.get(size);
+            boolean partlyTransparent = false;
+            for (int y = 0; y < size.height; y++) {
+                for (int x = 0; x < size.width; x++) {
+                    int argb = thumbnail.getRGB(x, y);
+                    int alpha = argb >>> 24;
+                    if (alpha == 0) {
+                        continue;
+                    }
+                    partlyTransparent |= alpha < 255;
+                    assertEquals(0, (argb >> 16) & 0xFF, "red at " + x + "," + y + " of " + size);
+                    assertEquals(0xFF, argb & 0xFF, "blue at " + x + "," + y + " of " + size);
+                }
+            }
+            assertTrue(partlyTransparent, "no edge pixels in " + size);
+        }
+    }
+
+    @Test
+    void opaqueImageAveragesBoxes() throws Exception {
+        BufferedImage image = new BufferedImage(64, 32, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 32; y++) {
+            for (int x = 0; x < 64; x++) {
+                image.setRGB(x, y, ((x * 4) << 16) | ((y * 8) << 8) | ((x + y) & 0xFF));
+            }
+        }
+
+        Dimension size = new Dimension(16, 8);
+        BufferedImage thumbnail = new PyramidDownscaler(8).downscale(image, List.of(size)).get(size);
+
+        for (int y = 0; y < size.height; y++) {
+            for (int x = 0; x < size.width; x++) {
+                int[] sums = new int[3];
+                for (int dy = 0; dy < 4; dy++) {
+                    for (int dx = 0; dx < 4; dx++) {
+                        int rgb = image.getRGB(4 * x + dx, 4 * y + dy);
+                        sums[0] += (rgb >> 16) & 0xFF;
+                        sums[1] += (rgb >> 8) & 0xFF;
+                        sums[2] += rgb & 0xFF;
+                    }
+                }
+                int rgb = thumbnail.getRGB(x, y);
+                // Two rounded 2x halvings may each be off by half a level
+                assertEquals(sums[0] / 16.0, (rgb >> 16) & 0xFF, 1.0);
+                assertEquals(sums[1] / 16.0, (rgb >> 8) & 0xFF, 1.0);
+                assertEquals(sums[2] / 16.0, rgb & 0xFF, 1.0);
+            }
+        }
+    }
+
+    @Test
+    void rejectsDuplicateSizes() {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        List<Dimension> sizes = List.of(new Dimension(8, 8), new Dimension(16, 16), new Dimension(8, 8));
+
+        assertThrows(IllegalArgumentException.class, () -> new PyramidDownscaler(16).downscale(image, sizes));
+    }
+}